@@ -2,7 +2,6 @@ from fastapi import FastAPI
 import threading
 from src.detect_sign import run_detection_loop
 from src.config import MIN_CONFIDENCE
-from datetime import datetime
 from fastapi.middleware.cors import CORSMiddleware  # <- Add this
 
 app = FastAPI(title="ASL Detection API")
@@ -56,7 +55,8 @@ def stop_detection():
 
 @app.get("/get-results")
 def get_results():
-    latest_letter["timestamp"] = datetime.now().isoformat()
+    # Keep the detection loop's own timestamp so callers can tell a repeated
+    # sample from a new one
     return latest_letter
 
 @app.get("/health")
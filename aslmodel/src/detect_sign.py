@@ -55,6 +55,14 @@ def extract_landmarks_from_frame(rgb_frame):
             return np.array(landmarks), hand_landmarks
     return None, None
 
+# -----------------------------
+# Frame Timestamp
+# -----------------------------
+def frame_timestamp():
+    # Millisecond resolution: the backend tells a new frame from a repeated poll by it
+    now = time.time()
+    return time.strftime("%Y-%m-%dT%H:%M:%S", time.localtime(now)) + f".{int(now * 1000) % 1000:03d}"
+
 # -----------------------------
 # Detection Loop Function
 # -----------------------------
@@ -71,6 +79,7 @@ def run_detection_loop(shared_dict, min_confidence, running_flag):
         if not success:
             continue
 
+        timestamp = frame_timestamp()
         frame = cv2.flip(frame, 1)
         rgb_frame = cv2.cvtColor(frame, cv2.COLOR_BGR2RGB)
 
@@ -90,7 +99,7 @@ def run_detection_loop(shared_dict, min_confidence, running_flag):
                 shared_dict.update({
                     "letter": predicted_class_name,
                     "confidence": confidence,
-                    "timestamp": time.strftime("%Y-%m-%dT%H:%M:%S")
+                    "timestamp": timestamp
                 })
                 label = f"{predicted_class_name} ({confidence:.2f})"
                 color = (0, 255, 0)
@@ -98,7 +107,7 @@ def run_detection_loop(shared_dict, min_confidence, running_flag):
                 shared_dict.update({
                     "letter": None,
                     "confidence": confidence,
-                    "timestamp": time.strftime("%Y-%m-%dT%H:%M:%S")
+                    "timestamp": timestamp
                 })
                 label = "Uncertain"
                 color = (0, 165, 255)
@@ -106,7 +115,7 @@ def run_detection_loop(shared_dict, min_confidence, running_flag):
             shared_dict.update({
                 "letter": None,
                 "confidence": 0.0,
-                "timestamp": time.strftime("%Y-%m-%dT%H:%M:%S")
+                "timestamp": timestamp
             })
 
         # Draw hand landmarks and label if detected
@@ -0,0 +1,122 @@
+# export_weights.py
+# Exports the landmark MLP (landmark_model.h5 + scaler + class mapping) into the
+# binary format read by the backend's in-JVM inference engine
+# (com.asl.backend.inference.LandmarkModel).
+#
+# Format, all values little-endian:
+#   magic      4 bytes   b"ASLM"
+#   version    int32     1
+#   input_dim  int32     number of input features (63 = 21 landmarks x 3)
+#   layers     int32     number of dense layers
+#   per layer:
+#     in       int32
+#     out      int32
+#     act      int32     0 = linear, 1 = relu, 2 = softmax
+#     kernel   float32[in * out]   row-major [in][out], same layout as Keras
+#     bias     float32[out]
+#   scaler:
+#     n        int32     == input_dim
+#     mean     float32[n]
+#     scale    float32[n]
+#   classes:
+#     count    int32     == out of the last layer
+#     per class: uint16 byte length + UTF-8 name, in model output order
+#
+# With --reference N it also writes N random landmark vectors and the Keras
+# model's softmax outputs for them ("ASLR" file), used for parity checks:
+#   magic b"ASLR", version int32, count int32, input_dim int32, classes int32,
+#   inputs float32[count * input_dim], outputs float32[count * classes]
+#
+# Usage: python src/export_weights.py [--out models/landmark_model.bin] [--reference 64]
+import argparse
+import os
+import pickle
+import struct
+import sys
+
+sys.path.append(os.path.dirname(os.path.dirname(os.path.abspath(__file__))))
+
+MAGIC = b"ASLM"
+REFERENCE_MAGIC = b"ASLR"
+VERSION = 1
+ACTIVATIONS = {None: 0, "linear": 0, "custom_relu": 1, "custom_softmax": 2}
+
+
+def _floats(values):
+    values = [float(v) for v in values]
+    return struct.pack("<%df" % len(values), *values)
+
+
+def write_model(path, layers, mean, scale, class_names):
+    """layers: list of (kernel rows [in][out], bias [out], activation name)."""
+    input_dim = len(layers[0][0])
+    with open(path, "wb") as f:
+        f.write(MAGIC)
+        f.write(struct.pack("<iii", VERSION, input_dim, len(layers)))
+        for kernel, bias, activation in layers:
+            f.write(struct.pack("<iii", len(kernel), len(bias), ACTIVATIONS[activation]))
+            f.write(_floats(v for row in kernel for v in row))
+            f.write(_floats(bias))
+        f.write(struct.pack("<i", len(mean)))
+        f.write(_floats(mean))
+        f.write(_floats(scale))
+        f.write(struct.pack("<i", len(class_names)))
+        for name in class_names:
+            encoded = name.encode("utf-8")
+            f.write(struct.pack("<H", len(encoded)))
+            f.write(encoded)
+
+
+def write_reference(path, inputs, outputs):
+    """inputs: [count][input_dim] raw landmarks, outputs: [count][classes] probabilities."""
+    with open(path, "wb") as f:
+        f.write(REFERENCE_MAGIC)
+        f.write(struct.pack("<iiii", VERSION, len(inputs), len(inputs[0]), len(outputs[0])))
+        f.write(_floats(v for row in inputs for v in row))
+        f.write(_floats(v for row in outputs for v in row))
+
+
+def main():
+    import numpy as np
+    import tensorflow as tf
+    from src.config import MODELS_PATH
+    from src.custom_model import CustomDense
+
+    parser = argparse.ArgumentParser(description="Export the landmark model for the Java backend")
+    parser.add_argument("--out", default=os.path.join(MODELS_PATH, "landmark_model.bin"))
+    parser.add_argument("--reference", type=int, default=0,
+                        help="also write N reference input/output pairs next to --out")
+    args = parser.parse_args()
+
+    model = tf.keras.models.load_model(
+        os.path.join(MODELS_PATH, "landmark_model.h5"),
+        custom_objects={"CustomDense": CustomDense},
+        compile=False
+    )
+    with open(os.path.join(MODELS_PATH, "landmark_scaler.pkl"), "rb") as f:
+        scaler = pickle.load(f)
+    with open(os.path.join(MODELS_PATH, "class_name_mapping.pkl"), "rb") as f:
+        class_name_mapping = pickle.load(f)
+
+    # Dropout layers are identity at inference time and are skipped
+    layers = []
+    for layer in model.layers:
+        if isinstance(layer, CustomDense):
+            kernel, bias = layer.get_weights()
+            layers.append((kernel.tolist(), bias.tolist(), layer.activation_name))
+
+    class_names = [class_name_mapping[i] for i in range(len(class_name_mapping))]
+    write_model(args.out, layers, scaler.mean_.tolist(), scaler.scale_.tolist(), class_names)
+    print(f"Wrote {len(layers)} layers, {len(class_names)} classes to {args.out}")
+
+    if args.reference > 0:
+        rng = np.random.default_rng(42)
+        inputs = rng.random((args.reference, len(scaler.mean_)), dtype=np.float32)
+        outputs = model.predict(scaler.transform(inputs), verbose=0)
+        reference_path = os.path.splitext(args.out)[0] + "_reference.bin"
+        write_reference(reference_path, inputs.tolist(), outputs.tolist())
+        print(f"Wrote {args.reference} reference samples to {reference_path}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,74 @@
+# make_test_model.py
+# Writes the small fixture model used by the backend's LandmarkModelTest
+# (backend/src/test/resources/inference): a random 63-32-16-29 network in the
+# export format of export_weights.py, plus reference outputs for 16 random inputs
+# computed with a plain float64 forward pass, so no TensorFlow is needed.
+# A fixed seed makes the files reproducible byte for byte.
+#
+# Usage: python src/make_test_model.py [--out-dir ../backend/src/test/resources/inference]
+import argparse
+import math
+import os
+import random
+import struct
+import sys
+
+sys.path.append(os.path.dirname(os.path.dirname(os.path.abspath(__file__))))
+from src.export_weights import write_model, write_reference
+
+SEED = 7
+DIMS = [63, 32, 16, 29]
+ACTIVATIONS = ["custom_relu", "custom_relu", "custom_softmax"]
+CLASS_NAMES = [chr(c) for c in range(ord("A"), ord("Z") + 1)] + ["del", "nothing", "space"]
+SAMPLES = 16
+
+
+def _f32(value):
+    # values are stored as float32, so the reference pass must start from the rounded ones
+    return struct.unpack("<f", struct.pack("<f", value))[0]
+
+
+def forward(x, layers, mean, scale):
+    v = [(x[i] - mean[i]) / scale[i] for i in range(len(x))]
+    for kernel, bias, activation in layers:
+        y = [bias[j] + sum(v[i] * kernel[i][j] for i in range(len(v))) for j in range(len(bias))]
+        if activation == "custom_relu":
+            y = [max(0.0, t) for t in y]
+        else:
+            m = max(y)
+            e = [math.exp(t - m) for t in y]
+            s = sum(e)
+            y = [t / s for t in e]
+        v = y
+    return v
+
+
+def main():
+    default_dir = os.path.join(os.path.dirname(os.path.dirname(os.path.dirname(os.path.abspath(__file__)))),
+                               "backend", "src", "test", "resources", "inference")
+    parser = argparse.ArgumentParser(description="Write the fixture model for the backend tests")
+    parser.add_argument("--out-dir", default=default_dir)
+    args = parser.parse_args()
+
+    rng = random.Random(SEED)
+    layers = []
+    for l in range(len(DIMS) - 1):
+        n_in, n_out = DIMS[l], DIMS[l + 1]
+        limit = math.sqrt(6 / (n_in + n_out))  # Glorot uniform
+        kernel = [[_f32(rng.uniform(-limit, limit)) for _ in range(n_out)] for _ in range(n_in)]
+        bias = [_f32(rng.uniform(-0.1, 0.1)) for _ in range(n_out)]
+        layers.append((kernel, bias, ACTIVATIONS[l]))
+    mean = [_f32(rng.uniform(0, 1)) for _ in range(DIMS[0])]
+    scale = [_f32(rng.uniform(0.05, 0.5)) for _ in range(DIMS[0])]
+
+    os.makedirs(args.out_dir, exist_ok=True)
+    write_model(os.path.join(args.out_dir, "tiny_model.bin"), layers, mean, scale, CLASS_NAMES)
+
+    inputs = [[_f32(rng.random()) for _ in range(DIMS[0])] for _ in range(SAMPLES)]
+    outputs = [forward(x, layers, mean, scale) for x in inputs]
+    write_reference(os.path.join(args.out_dir, "tiny_model_reference.bin"), inputs, outputs)
+    print(f"Wrote tiny_model.bin and {SAMPLES} reference samples to {args.out_dir}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,81 @@
+package com.asl.backend.benchmarks;
+
+import com.asl.backend.entity.DetectionSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention on DetectionService's per-user maps (activeSessions, latestPredictions and
+ * the run encoder's session state) with 1,000 active sessions.
+ * Lookups run at 1, 4 and 16 threads; the "mixed" group runs 3 readers per writer
+ * (change the split with -tg, e.g. -tg 12,4).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActiveSessionMapBenchmark {
+
+    private static final int USERS = 1000;
+
+    private DetectionFixtures fixtures;
+    private DetectionSession[] sessions;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+        long sample;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = new DetectionFixtures();
+        sessions = new DetectionSession[USERS];
+        for (int u = 0; u < USERS; u++) {
+            sessions[u] = fixtures.startSession(u + 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DetectionSession lookup1(ThreadState t) {
+        return lookup(t);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DetectionSession lookup4(ThreadState t) {
+        return lookup(t);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public DetectionSession lookup16(ThreadState t) {
+        return lookup(t);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public DetectionSession mixedRead(ThreadState t) {
+        return lookup(t);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite(ThreadState t) {
+        DetectionSession session = sessions[t.random.nextInt(USERS)];
+        long i = t.sample++;
+        String letter = DetectionFixtures.LETTERS[(int) (i % DetectionFixtures.LETTERS.length)];
+        fixtures.detectionService.saveDetectionResult(session, letter, 0.9, Long.toString(i));
+    }
+
+    private DetectionSession lookup(ThreadState t) {
+        return fixtures.detectionService.getActiveSession((long) t.random.nextInt(USERS) + 1);
+    }
+}
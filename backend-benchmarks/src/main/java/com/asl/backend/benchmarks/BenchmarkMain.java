@@ -0,0 +1,21 @@
+package com.asl.backend.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: the JMH command line, but results are written as JSON
+ * (jmh-result.json unless -rff says otherwise) so runs of two builds can be diffed.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(List.of(args));
+        if (!argv.contains("-rf")) argv.addAll(List.of("-rf", "json"));
+        if (!argv.contains("-rff")) argv.addAll(List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(argv.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,136 @@
+package com.asl.backend.benchmarks;
+
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.entity.User;
+import com.asl.backend.inference.LandmarkClassifier;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import com.asl.backend.repository.UserRepository;
+import com.asl.backend.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A DetectionService wired like the application, minus the outside world:
+ * repositories are Mockito stubs, transactions run inline and the Python client
+ * answers from memory (users are still pinned to a worker of a real pool).
+ * Run encoder, transcriber, write-behind buffer, poller and stream service are the real classes,
+ * so their cost is part of every measurement.
+ */
+final class DetectionFixtures {
+
+    static final String[] LETTERS = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "K", "L", "M"};
+
+    final DetectionService detectionService;
+    final StubPythonService pythonService;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    DetectionFixtures() {
+        DetectionSessionRepository sessionRepo = stub(DetectionSessionRepository.class);
+        when(sessionRepo.save(any())).thenAnswer(inv -> {
+            DetectionSession session = inv.getArgument(0);
+            session.setId(ids.incrementAndGet());
+            return session;
+        });
+        DetectionResultRepository resultRepo = stub(DetectionResultRepository.class);
+        TransactionTemplate tx = new InlineTransactionTemplate();
+        DetectionMetrics metrics = new DetectionMetrics(new SimpleMeterRegistry());
+
+        InferenceWorkerPool pool = new InferenceWorkerPool();
+        ReflectionTestUtils.setField(pool, "workerUrls", "http://stub-worker");
+        ReflectionTestUtils.setField(pool, "loadFactor", 1.25);
+        pool.init();
+
+        pythonService = new StubPythonService(pool, metrics);
+        UpstreamResultPoller poller = new UpstreamResultPoller(pythonService, pool);
+        ReflectionTestUtils.setField(poller, "maxAgeMs", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(poller, "idleMs", 10_000L);
+
+        PredictionStreamService streamService = new PredictionStreamService();
+        PlatformRollupService rollupService = stub(PlatformRollupService.class);
+
+        // journal off: appends return at once, as with detection.journal.enabled=false
+        DetectionJournal journal = new DetectionJournal();
+
+        DetectionResultWriter writer = new DetectionResultWriter(resultRepo, sessionRepo, rollupService,
+                stub(UserLetterStatsService.class), stub(JdbcTemplate.class), tx, metrics);
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 50);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 2000L);
+
+        DetectionRunEncoder encoder = new DetectionRunEncoder(writer, journal);
+        ReflectionTestUtils.setField(encoder, "storageMode", "run-length");
+
+        DetectionTranscriber transcriber = new DetectionTranscriber(sessionRepo, metrics);
+        ReflectionTestUtils.setField(transcriber, "holdMs", 500L);
+        ReflectionTestUtils.setField(transcriber, "sampleIntervalMs", 250L);
+        ReflectionTestUtils.setField(transcriber, "minConfidence", 0.8);
+        transcriber.init();
+
+        detectionService = new DetectionService(sessionRepo, resultRepo, stub(UserRepository.class),
+                pythonService, poller, streamService, writer, encoder, transcriber, rollupService, tx,
+                new LandmarkClassifier(), metrics, new InMemorySessionRegistry(), journal);
+        detectionService.registerMetrics();
+    }
+
+    // stub-only mocks do not record invocations, so long runs do not accumulate garbage
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    /** Start a session for a new user id and return it */
+    DetectionSession startSession(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setName("bench-" + userId);
+        return detectionService.startDetection(user);
+    }
+
+    /** Runs callbacks on the calling thread with no real transaction */
+    static final class InlineTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    }
+
+    /** Python client answering from memory; {@link #next} is what /get-results returns */
+    static final class StubPythonService extends PythonIntegrationService {
+        volatile PythonResult next = new PythonResult("A", 0.9, "0");
+        private final InferenceWorkerPool pool;
+
+        StubPythonService(InferenceWorkerPool pool, DetectionMetrics metrics) {
+            super(pool, new ObjectMapper(), metrics, 5, 5000);
+            this.pool = pool;
+        }
+
+        @Override
+        public CompletableFuture<String> startDetection(Long userId) {
+            pool.place(userId);
+            return CompletableFuture.completedFuture("started");
+        }
+
+        @Override
+        public CompletableFuture<String> stopDetection(Long userId) {
+            pool.release(userId);
+            return CompletableFuture.completedFuture("stopped");
+        }
+
+        @Override
+        public CompletableFuture<PythonResult> fetchResult(InferenceWorkerPool.Worker worker) {
+            return CompletableFuture.completedFuture(next);
+        }
+    }
+}
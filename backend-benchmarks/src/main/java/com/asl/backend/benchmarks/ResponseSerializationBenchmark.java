@@ -0,0 +1,63 @@
+package com.asl.backend.benchmarks;
+
+import com.asl.backend.dto.DetectionSessionDto;
+import com.asl.backend.service.DetectionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the /api/detection/result and /api/detection/sessions bodies,
+ * with an ObjectMapper configured the way Spring Boot configures the application's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper mapper;
+    private Map<String, Object> resultBody;
+    private Map<String, Object> sessionsBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        resultBody = new HashMap<>();
+        resultBody.put("prediction", "A");
+        resultBody.put("confidence", 0.93);
+
+        List<DetectionSessionDto> sessions = new ArrayList<>(pageSize);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < pageSize; i++) {
+            LocalDateTime created = start.minusHours(i);
+            sessions.add(new DetectionSessionDto((long) (1000 - i), "bench-user", created, created.plusMinutes(5),
+                    300L, 270.0, 0b1011_0110_1101, "stopped", "practice", "HELLO WORLD"));
+        }
+        sessionsBody = new HashMap<>();
+        sessionsBody.put("sessions", sessions);
+        sessionsBody.put("hasMore", true);
+        sessionsBody.put("nextCursor", DetectionService.encodeCursor(sessions.get(sessions.size() - 1)));
+    }
+
+    @Benchmark
+    public byte[] resultResponse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(resultBody);
+    }
+
+    @Benchmark
+    public byte[] sessionsResponse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(sessionsBody);
+    }
+}
@@ -0,0 +1,52 @@
+package com.asl.backend.benchmarks;
+
+import com.asl.backend.entity.DetectionSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-sample cost of the result path: storing an observation (run encoder, aggregates,
+ * write-behind buffer) and serving GET /api/detection/result from the poller snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultIngestBenchmark {
+
+    /** Observations per run of the same letter; 1 means the letter changes every sample */
+    @Param({"1", "8"})
+    public int runLength;
+
+    private DetectionFixtures fixtures;
+    private DetectionSession session;
+    private long sample;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixtures = new DetectionFixtures();
+        session = fixtures.startSession(1L);
+        sample = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        fixtures.detectionService.stopDetection(1L);
+    }
+
+    @Benchmark
+    public void saveDetectionResult() {
+        long i = sample++;
+        String letter = DetectionFixtures.LETTERS[(int) ((i / runLength) % DetectionFixtures.LETTERS.length)];
+        fixtures.detectionService.saveDetectionResult(session, letter, 0.9, Long.toString(i));
+    }
+
+    @Benchmark
+    public Map<String, Object> getLatestPrediction() {
+        return fixtures.detectionService.getLatestPrediction(1L).join();
+    }
+}
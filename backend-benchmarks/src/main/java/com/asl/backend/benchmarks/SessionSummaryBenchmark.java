@@ -0,0 +1,103 @@
+package com.asl.backend.benchmarks;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session summary (total predictions, average confidence, unique signs) for sessions of
+ * 10k and 100k observations: streaming over one row per observation, over run-length
+ * encoded rows, rebuilding the running aggregates, and reading the maintained aggregates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionSummaryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int observations;
+
+    private List<DetectionResult> rawRows;
+    private List<DetectionResult> runRows;
+    private DetectionSession maintained;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        rawRows = new ArrayList<>(observations);
+        runRows = new ArrayList<>();
+        maintained = new DetectionSession();
+        maintained.initAggregates();
+
+        DetectionResult run = null;
+        for (int i = 0; i < observations; i++) {
+            // runs of 1..16 samples of the same letter, like a signer holding a pose
+            if (run == null || random.nextInt(8) == 0) {
+                String letter = DetectionFixtures.LETTERS[random.nextInt(DetectionFixtures.LETTERS.length)];
+                run = row(letter, 0.0);
+                run.setObservations(0);
+                runRows.add(run);
+            }
+            double confidence = 0.7 + random.nextDouble() * 0.3;
+            rawRows.add(row(run.getLetter(), confidence));
+            run.setObservations(run.getObservations() + 1);
+            run.setConfidenceSum(run.getConfidenceSum() + confidence);
+            maintained.recordObservation(run.getLetter(), confidence);
+        }
+    }
+
+    @Benchmark
+    public void streamOverRawRows(Blackhole bh) {
+        bh.consume(rawRows.size());
+        bh.consume(rawRows.stream().mapToDouble(DetectionResult::getConfidence).average().orElse(0.0));
+        bh.consume(rawRows.stream().map(DetectionResult::getLetter).distinct().count());
+    }
+
+    @Benchmark
+    public void streamOverRunRows(Blackhole bh) {
+        long total = runRows.stream().mapToLong(DetectionResult::getObservationCount).sum();
+        double sum = runRows.stream().mapToDouble(DetectionResult::getConfidenceTotal).sum();
+        bh.consume(total);
+        bh.consume(total > 0 ? sum / total : 0.0);
+        bh.consume(runRows.stream().map(DetectionResult::getLetter).distinct().count());
+    }
+
+    @Benchmark
+    public void rebuildAggregates(Blackhole bh) {
+        DetectionSession session = new DetectionSession();
+        session.initAggregates();
+        for (DetectionResult r : rawRows) {
+            session.recordObservation(r.getLetter(), r.getConfidence());
+        }
+        summary(session, bh);
+    }
+
+    @Benchmark
+    public void readMaintainedAggregates(Blackhole bh) {
+        summary(maintained, bh);
+    }
+
+    private static void summary(DetectionSession session, Blackhole bh) {
+        bh.consume(session.getTotalPredictions());
+        bh.consume(session.getAverageConfidence());
+        bh.consume(session.getUniqueSigns());
+    }
+
+    private static DetectionResult row(String letter, double confidence) {
+        DetectionResult r = new DetectionResult();
+        r.setLetter(letter);
+        r.setConfidence(confidence);
+        r.setObservations(1);
+        r.setConfidenceSum(confidence);
+        return r;
+    }
+}
@@ -0,0 +1,179 @@
+package com.asl.backend.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Startup of the packaged backend, outside JMH: launches the jar (with any JVM flags, e.g. the
+ * fast-startup profile's CDS archive and AOT), then reports
+ * <ul>
+ *   <li>time to ready: process start until /actuator/health/readiness answers 200</li>
+ *   <li>time to steady state: process start until the median latency of {@code --batch} sequential
+ *       requests to {@code --path} stays within {@code --tolerance} of the previous
+ *       {@code --window} batches' medians</li>
+ * </ul>
+ * The backend needs its database; a user is signed up and logged in so /api/detection/result
+ * can be measured, and rate limiting is turned off for the run.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.asl.backend.benchmarks.StartupBenchmark \
+ *      --jar ../backend/target/cds/backend-0.0.1-SNAPSHOT-exec.jar \
+ *      --jvm "-XX:SharedArchiveFile=../backend/target/cds/backend.jsa -Dspring.aot.enabled=true" --runs 3
+ * </pre>
+ * Results go to startup-result.json (or --out).
+ */
+public final class StartupBenchmark {
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String jar = Objects.requireNonNull(options.get("jar"), "--jar is required");
+        String jvm = options.getOrDefault("jvm", "");
+        int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+        String path = options.getOrDefault("path", "/api/detection/result");
+        int runs = Integer.parseInt(options.getOrDefault("runs", "1"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "200"));
+        int window = Integer.parseInt(options.getOrDefault("window", "3"));
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.1"));
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-ms", "300000"));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            Map<String, Object> result = measure(jar, jvm, port, path, batch, window, tolerance, timeoutMs);
+            System.out.printf("run %d: ready in %d ms, steady state in %d ms%n",
+                    run + 1, result.get("timeToReadyMs"), result.get("timeToSteadyStateMs"));
+            results.add(result);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jar", jar);
+        report.put("jvm", jvm);
+        report.put("path", path);
+        report.put("medianTimeToReadyMs", median(results, "timeToReadyMs"));
+        report.put("medianTimeToSteadyStateMs", median(results, "timeToSteadyStateMs"));
+        report.put("runs", results);
+        File out = new File(options.getOrDefault("out", "startup-result.json"));
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out, report);
+        System.out.println("Results written to " + out);
+    }
+
+    private static Map<String, Object> measure(String jar, String jvm, int port, String path, int batch,
+                                               int window, double tolerance, long timeoutMs) throws Exception {
+        List<String> command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElse("java")));
+        if (!jvm.isBlank()) command.addAll(List.of(jvm.trim().split("\\s+")));
+        // actuator on the server port, so readiness is polled where the requests go
+        command.addAll(List.of("-jar", jar, "--server.port=" + port, "--management.server.port=" + port,
+                "--rate-limit.enabled=false", "--management.endpoint.health.probes.enabled=true"));
+
+        HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(1)).build();
+        String base = "http://localhost:" + port;
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(new File("startup-backend.log")).start();
+        try {
+            long deadline = started + timeoutMs * 1_000_000L;
+            while (!ready(client, base)) {
+                if (!process.isAlive()) throw new IllegalStateException("Backend exited; see startup-backend.log");
+                if (System.nanoTime() > deadline) throw new IllegalStateException("Backend not ready in time");
+                Thread.sleep(10);
+            }
+            long readyMs = elapsedMs(started);
+
+            login(client, base);
+            Deque<Double> medians = new ArrayDeque<>();
+            List<Double> batches = new ArrayList<>();
+            long steadyMs = -1;
+            while (steadyMs < 0 && System.nanoTime() < deadline) {
+                double median = batchMedianMicros(client, base + path, batch);
+                batches.add(median);
+                if (medians.size() == window && medians.stream().allMatch(m -> Math.abs(median - m) <= tolerance * m)) {
+                    steadyMs = elapsedMs(started);
+                }
+                medians.addLast(median);
+                if (medians.size() > window) medians.removeFirst();
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("timeToReadyMs", readyMs);
+            result.put("timeToSteadyStateMs", steadyMs);
+            result.put("batchMedianMicros", batches);
+            return result;
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static boolean ready(HttpClient client, String base) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/actuator/health/readiness"))
+                    .timeout(Duration.ofSeconds(1)).build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Sign up (ignored if the user exists) and log in, keeping the session cookie
+    private static void login(HttpClient client, String base) throws IOException, InterruptedException {
+        String credentials = "\"email\":\"startup-bench@example.com\",\"password\":\"startup-bench\"";
+        post(client, base + "/api/users/signup",
+                "{\"name\":\"startup-bench\"," + credentials + ",\"confirmPassword\":\"startup-bench\"}");
+        int status = post(client, base + "/api/users/login", "{" + credentials + "}");
+        if (status != 200) throw new IllegalStateException("Login failed with " + status);
+    }
+
+    private static int post(HttpClient client, String url, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static double batchMedianMicros(HttpClient client, String url, int batch)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).build();
+        long[] latencies = new long[batch];
+        for (int i = 0; i < batch; i++) {
+            long start = System.nanoTime();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[batch / 2] / 1000.0;
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private static long median(List<Map<String, Object>> results, String key) {
+        long[] values = results.stream().mapToLong(r -> (Long) r.get(key)).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -1,8 +1,12 @@
  package com.asl.backend.Security;
 
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -16,7 +20,8 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, Environment environment) throws Exception {
+        boolean separateManagementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
         http
             .csrf(csrf -> csrf.disable()) // disable CSRF for API
             .cors(withDefaults()) // use your WebConfig CORS setup
@@ -31,9 +36,13 @@ public class SecurityConfig {
                     "/api/users/me",
                     "/api/auth/**",
                     "/api/detection/**",
-                    "/api/dashboard/users/total"
+                    "/api/dashboard/users/total",
+                    "/actuator/health/**"
 
                 ).permitAll()
+                // Scraped on the management port only, which is not published outside the cluster
+                .requestMatchers(request -> separateManagementPort
+                        && EndpointRequest.to(PrometheusScrapeEndpoint.class).matches(request)).permitAll()
                 .anyRequest().authenticated()
             )
             .exceptionHandling(ex -> ex
@@ -0,0 +1,96 @@
+package com.asl.backend.config;
+
+import com.asl.backend.service.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Application DataSource: the primary pool behind a LazyConnectionDataSourceProxy whose
+ * read-only DataSource is a ReplicaRoutingDataSource. Read-only transactions
+ * ({@code @Transactional(readOnly = true)}, read-only TransactionTemplates and Spring Data's
+ * inherited find/count methods) run on a replica when one is configured and caught up;
+ * everything else runs on the primary. The proxy only takes a physical connection at the
+ * first statement, once the transaction's read-only flag is set.
+ * With {@code datasource.replicas.urls} empty every connection comes from the primary.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /** Comma-separated JDBC URLs */
+    @Value("${datasource.replicas.urls:}")
+    private String replicaUrls;
+
+    /** Blank = the primary's credentials */
+    @Value("${datasource.replicas.username:}")
+    private String replicaUsername;
+
+    @Value("${datasource.replicas.password:}")
+    private String replicaPassword;
+
+    @Value("${datasource.replicas.pool-size:10}")
+    private int replicaPoolSize;
+
+    /** How long a read waits for a replica connection before the primary is used */
+    @Value("${datasource.replicas.connection-timeout-ms:1000}")
+    private long replicaConnectionTimeoutMs;
+
+    @Value("${datasource.replicas.max-lag-ms:1000}")
+    private long maxLagMs;
+
+    /** Query returning a replica's lag in milliseconds; blank = ReplicaRoutingDataSource.POSTGRES_LAG_QUERY */
+    @Value("${datasource.replicas.lag-query:}")
+    private String lagQuery;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(DataSourceProperties properties, HikariDataSource primaryDataSource,
+                                                      ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) continue;
+            String name = "replica-" + replicas.size();
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername);
+            pool.setPassword(replicaUsername.isBlank() ? properties.determinePassword() : replicaPassword);
+            pool.setMaximumPoolSize(replicaPoolSize);
+            pool.setConnectionTimeout(replicaConnectionTimeoutMs);
+            pool.setReadOnly(true);
+            // a replica that is down at startup is only skipped
+            pool.setInitializationFailTimeout(-1);
+            replicas.put(name, pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs,
+                lagQuery.isBlank() ? ReplicaRoutingDataSource.POSTGRES_LAG_QUERY : lagQuery,
+                readYourWrites::pinnedToPrimary, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        // Hikari's and Postgres' defaults, so the proxy never opens a connection just to read them
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
@@ -0,0 +1,65 @@
+package com.asl.backend.config;
+
+import com.asl.backend.entity.User;
+import com.asl.backend.service.RequestAdmissionService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Applies RequestAdmissionService to handlers annotated with RateLimited and answers
+ * rejected requests with 429 and Retry-After. Clients are keyed by user id once logged
+ * in, else by HTTP session, else by remote address. For async handlers (/result) the
+ * upstream permit is held until the async dispatch completes.
+ */
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ADMISSION = RateLimitInterceptor.class.getName() + ".admission";
+
+    private final RequestAdmissionService admissionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // async re-dispatches were admitted with the original request
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+        if (!(handler instanceof HandlerMethod method)) return true;
+        RateLimited limit = method.getMethodAnnotation(RateLimited.class);
+        if (limit == null) return true;
+
+        RequestAdmissionService.Admission admission = admissionService.admit(limit.value(), client(request), limit.upstream());
+        if (!admission.admitted()) {
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(admission.retryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests\"}");
+            return false;
+        }
+        if (admission.holdsPermit()) request.setAttribute(ADMISSION, admission);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMISSION) instanceof RequestAdmissionService.Admission admission) {
+            request.removeAttribute(ADMISSION);
+            admissionService.release(admission);
+        }
+    }
+
+    private static String client(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return session.getAttribute("user") instanceof User user ? "user:" + user.getId() : "session:" + session.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,21 @@
+package com.asl.backend.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate-limits a handler per user (or per session before login) with the
+ * {@code rate-limit.<value>.*} settings; see RequestAdmissionService.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    /** Endpoint name, used in property keys and meter tags */
+    String value();
+
+    /** Whether the handler calls the Python service, and so also counts against the global concurrency cap */
+    boolean upstream() default false;
+}
@@ -0,0 +1,55 @@
+package com.asl.backend.config;
+
+import com.asl.backend.entity.User;
+import com.asl.backend.service.ReadYourWrites;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Marks the requests whose reads stay on the primary database (see ReadYourWrites):
+ * every request other than GET/HEAD/OPTIONS, and any request of a logged-in user who
+ * made such a request within the sticky window. The window is counted from the end of
+ * the write request, so it also covers the user a login request has just put in the session.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReadYourWrites readYourWrites;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async re-dispatches keep the attribute of the original request
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+
+        HttpSession session = userSession(request);
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            if (session != null) readYourWrites.wrote(session);
+            request.setAttribute(ReadYourWrites.PINNED, Boolean.TRUE);
+        } else if (session != null && readYourWrites.wroteRecently(session)) {
+            request.setAttribute(ReadYourWrites.PINNED, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return;
+        if (SAFE_METHODS.contains(request.getMethod())) return;
+        HttpSession session = userSession(request);
+        if (session != null) readYourWrites.wrote(session);
+    }
+
+    // The session of a logged-in user, or null
+    private static HttpSession userSession(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute("user") instanceof User ? session : null;
+    }
+}
@@ -0,0 +1,141 @@
+package com.asl.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Read-only side of the application DataSource (see DataSourceConfig).
+ * Hands out connections of the replicas in turn, skipping any whose last lag check failed
+ * or measured more than {@code maxLagMs}; a replica is not used before its first check.
+ * Falls back to the primary when no replica qualifies, when getting a replica connection
+ * fails, and when the read must see the caller's own writes ({@code pinnedToPrimary}).
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /** Replication lag in milliseconds; 0 on a server that is not a standby */
+    public static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) AS bigint) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final BooleanSupplier pinnedToPrimary;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter pinnedReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs,
+                                    String lagQuery, BooleanSupplier pinnedToPrimary, MeterRegistry registry) {
+        this.primary = primary;
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        this.pinnedToPrimary = pinnedToPrimary;
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMs >= 0 ? r.lagMs : Double.NaN)
+                    .description("Replication lag at the last check (NaN while the replica is unreachable)")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(registry);
+        });
+        this.replicaReads = reads(registry, "replica");
+        this.pinnedReads = reads(registry, "pinned");
+        this.fallbackReads = reads(registry, "fallback");
+    }
+
+    private static Counter reads(MeterRegistry registry, String route) {
+        return Counter.builder("datasource.reads")
+                .description("Connections handed out for read-only transactions, by where they went")
+                .tag("route", route)
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty()) return primary.getConnection();
+        if (pinnedToPrimary.getAsBoolean()) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            long lag = replica.lagMs;
+            if (lag < 0 || lag > maxLagMs) continue;
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.lagMs = -1;
+                log.warn("Read replica {} unavailable, reading from the primary: {}", replica.name, e.getMessage());
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    /** Measure every replica's lag; one that cannot be asked is skipped until it answers again */
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lag = rs.next() ? Math.max(0, rs.getLong(1)) : -1;
+                if (replica.lagMs < 0 && lag >= 0) log.info("Read replica {} is available (lag {} ms)", replica.name, lag);
+                replica.lagMs = lag;
+            } catch (SQLException e) {
+                if (replica.lagMs >= 0) log.warn("Read replica {} failed its lag check: {}", replica.name, e.getMessage());
+                replica.lagMs = -1;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // -1 until the first successful check, and after a failed one
+        private volatile long lagMs = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.asl.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Threads of the @Scheduled jobs.
+ * The upstream poll and the record/push loop name {@code detectionScheduler}, so they keep
+ * their rate whatever the other jobs do; everything else (result and transcript flushes,
+ * worker health probes, replica lag checks, registry heartbeats, journal drains, backfills,
+ * archival) blocks on the database, disk or HTTP and shares {@code taskScheduler}, sized by
+ * {@code spring.task.scheduling.pool.size}.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /** Default scheduler of @Scheduled jobs, picked by its name */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler detectionScheduler(@Value("${detection.scheduler.pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("detection-scheduling-");
+        return scheduler;
+    }
+}
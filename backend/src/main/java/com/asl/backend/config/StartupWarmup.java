@@ -0,0 +1,118 @@
+package com.asl.backend.config;
+
+import com.asl.backend.dto.DetectionSessionDto;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.inference.LandmarkClassifier;
+import com.asl.backend.service.DetectionJournal;
+import com.asl.backend.service.DetectionMetrics;
+import com.asl.backend.service.DetectionResultWriter;
+import com.asl.backend.service.DetectionRunEncoder;
+import com.asl.backend.service.DetectionService;
+import com.asl.backend.service.DetectionTranscriber;
+import com.asl.backend.util.AslAlphabet;
+import com.asl.backend.util.ResultArchiveCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Optional JIT warm-up of the detection and history paths before the application reports ready.
+ * Runners complete before ApplicationReadyEvent, so /actuator/health/readiness only turns UP
+ * (and traffic is routed here) after {@code startup.warmup.iterations} rounds. The detection
+ * components are throwaway instances whose writer and repository are stubs, so nothing is written
+ * to the database or sent to Python; the in-JVM classifier and the application's ObjectMapper
+ * are the real beans. Enabled at runtime rather than by a condition, so AOT-processed builds honor it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    private final ObjectMapper objectMapper;
+    private final LandmarkClassifier landmarkClassifier;
+
+    @Value("${startup.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${startup.warmup.iterations:20000}")
+    private int iterations;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) return;
+        long started = System.nanoTime();
+
+        DetectionMetrics metrics = new DetectionMetrics(new SimpleMeterRegistry());
+        List<DetectionResult> written = new ArrayList<>();
+        DetectionResultWriter writer = new DetectionResultWriter(null, null, null, null, null, null, metrics) {
+            @Override
+            public void enqueue(DetectionResult result) {
+                if (written.size() < 1000) written.add(result);
+            }
+        };
+        DetectionRunEncoder encoder = new DetectionRunEncoder(writer, new DetectionJournal());
+        DetectionTranscriber transcriber = new DetectionTranscriber(null, metrics);
+        transcriber.init();
+        DetectionSession session = DetectionSession.builder().id(-1L).build();
+
+        float[] landmarks = landmarkClassifier.isAvailable() ? new float[landmarkClassifier.getInputDim()] : null;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long bytes = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            // detection path: classify, fold into runs and the transcript, serialize the /result body
+            String letter = AslAlphabet.CLASS_NAMES.get((i / 7) % AslAlphabet.NUM_CLASSES);
+            double confidence = 0.7 + random.nextDouble() * 0.3;
+            if (landmarks != null) {
+                for (int j = 0; j < landmarks.length; j++) landmarks[j] = random.nextFloat();
+                LandmarkClassifier.Prediction prediction = landmarkClassifier.classify(landmarks);
+                bytes += serialize(Map.of("prediction", prediction.letter(), "confidence", prediction.confidence()));
+            }
+            encoder.observe(session, letter, confidence, Integer.toString(i));
+            transcriber.observe(session.getId(), letter, confidence);
+            bytes += serialize(Map.of("prediction", letter, "confidence", confidence));
+
+            // history path: a page of sessions with its cursor, and archived results
+            if (i % 100 == 0) {
+                bytes += serialize(historyPage(i));
+                if (!written.isEmpty()) {
+                    bytes += ResultArchiveCodec.decode(ResultArchiveCodec.encode(written, true)).size();
+                }
+                if (written.size() >= 1000) written.clear();
+            }
+        }
+        encoder.close(session.getId());
+
+        log.info("Warm-up: {} iterations in {} ms ({} bytes produced)", iterations,
+                (System.nanoTime() - started) / 1_000_000, bytes);
+    }
+
+    private Map<String, Object> historyPage(int seed) {
+        List<DetectionSessionDto> sessions = new ArrayList<>(10);
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime created = start.minusMinutes(seed + i);
+            sessions.add(new DetectionSessionDto((long) (seed + i), "warmup", created, created.plusMinutes(5),
+                    300L, 270.0, 0b1011_0110_1101, "stopped", "practice", "HELLO"));
+        }
+        return Map.of("sessions", sessions, "hasMore", true,
+                "nextCursor", DetectionService.encodeCursor(sessions.get(sessions.size() - 1)));
+    }
+
+    private int serialize(Object body) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(body).length;
+    }
+}
@@ -1,8 +1,17 @@
 package com.asl.backend.config;
 
+import com.asl.backend.entity.User;
+import com.asl.backend.service.PresenceTracker;
+import com.asl.backend.service.ReadYourWrites;
+import com.asl.backend.service.RequestAdmissionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,7 +19,8 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig {
 
     @Bean
-    public WebMvcConfigurer webMvcConfigurer() {
+    public WebMvcConfigurer webMvcConfigurer(PresenceTracker presenceTracker, RequestAdmissionService admissionService,
+                                             ReadYourWrites readYourWrites) {
         return new WebMvcConfigurer() {
 
             // CORS configuration for frontend React app
@@ -23,6 +33,25 @@ public class WebConfig {
                         .allowCredentials(true); // important for session cookies
             }
 
+            // Every request of a logged-in user refreshes their presence
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new HandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        HttpSession session = request.getSession(false);
+                        if (session != null && session.getAttribute("user") instanceof User user) {
+                            presenceTracker.touch(user.getEmail());
+                        }
+                        return true;
+                    }
+                });
+                // Per-client rate limits and the upstream concurrency cap (handlers marked @RateLimited)
+                registry.addInterceptor(new RateLimitInterceptor(admissionService)).addPathPatterns("/api/**");
+                // Reads of write requests, and of their user shortly after, stay on the primary database
+                registry.addInterceptor(new ReadYourWritesInterceptor(readYourWrites)).addPathPatterns("/api/**");
+            }
+
             // Serve uploaded files from "uploads" folder
             @Override
             public void addResourceHandlers(ResourceHandlerRegistry registry) {
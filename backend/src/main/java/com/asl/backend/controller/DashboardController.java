@@ -1,15 +1,22 @@
 package com.asl.backend.controller;
 
-import com.asl.backend.entity.DetectionResult;
-import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.service.DetectionAnalyticsService;
 import com.asl.backend.service.DetectionService;
+import com.asl.backend.service.PlatformRollupService;
+import com.asl.backend.service.ResponseCache;
 import com.asl.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -19,12 +26,15 @@ public class DashboardController {
 
     private final DetectionService detectionService;
     private final UserService userService;
+    private final DetectionAnalyticsService analyticsService;
+    // Short-TTL cache with ETags for the stats read by every open dashboard
+    private final ResponseCache responseCache;
 
     @GetMapping("/users/total")
-    public ResponseEntity<?> getTotalUsers() {
+    public ResponseEntity<?> getTotalUsers(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            int totalUsers = userService.getTotalUsers();
-            return ResponseEntity.ok(Map.of("totalUsers", totalUsers));
+            return responseCache.respond("dashboard-users-total", ifNoneMatch,
+                    () -> Map.of("totalUsers", userService.getTotalUsers()));
         } catch (Exception e) {
             return ResponseEntity.status(500)
                     .body(Map.of("error", "Failed to fetch total users: " + e.getMessage()));
@@ -43,30 +53,45 @@ public class DashboardController {
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<?> getDashboardStats() {
+    public ResponseEntity<?> getDashboardStats(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<DetectionSession> allSessions = detectionService.getAllSessions();
+            return responseCache.respond("dashboard-stats", ifNoneMatch, () -> {
+                // Constant-time read of the maintained platform rollup
+                PlatformRollupService.PlatformTotals totals = detectionService.getPlatformTotals();
 
-            long totalSessions = allSessions.size();
-            long totalSignsDetected = allSessions.stream()
-                    .flatMap(s -> s.getResults() != null ? s.getResults().stream() : Stream.empty())
-                    .count();
-
-            double accuracyRate = allSessions.stream()
-                    .flatMap(s -> s.getResults() != null ? s.getResults().stream() : Stream.empty())
-                    .mapToDouble(DetectionResult::getConfidence)
-                    .average()
-                    .orElse(0.0);
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalSessions", totalSessions);
-            stats.put("totalSignsDetected", totalSignsDetected);
-            stats.put("accuracyRate", accuracyRate);
-
-            return ResponseEntity.ok(stats);
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("totalSessions", totals.totalSessions());
+                stats.put("totalSignsDetected", totals.totalSigns());
+                stats.put("accuracyRate", totals.getAccuracyRate());
+                stats.put("letterCounts", totals.letterCounts());
+                return stats;
+            });
         } catch (Exception e) {
             return ResponseEntity.status(500)
                     .body(Map.of("error", "Failed to fetch stats: " + e.getMessage()));
         }
     }
+
+    /**
+     * Signs per time bucket in [from, to), aggregated in the database and streamed.
+     * Defaults to the last hour in one-minute buckets; bucket takes "30s", "5m", "PT1H", ...
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<?> getTimeseries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1m") String bucket) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        Duration width;
+        try {
+            width = DurationStyle.detectAndParse(bucket);
+            analyticsService.validateRange(start, end, width);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = out -> analyticsService.writeTimeseries(start, end, width, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
@@ -1,16 +1,32 @@
 package com.asl.backend.controller;
 
-import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.config.RateLimited;
+import com.asl.backend.dto.DetectionSessionDto;
+import com.asl.backend.dto.LandmarkBatchDto;
 import com.asl.backend.entity.DetectionSession;
 import com.asl.backend.entity.User;
 import com.asl.backend.service.DetectionService;
+import com.asl.backend.service.LandmarkIngestService;
+import com.asl.backend.service.PredictionStreamService;
+import com.asl.backend.service.ResultArchiveService;
+import com.asl.backend.service.ResultExportService;
+import com.asl.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/detection")
@@ -19,9 +35,15 @@ import java.util.stream.Collectors;
 public class DetectionController {
 
     private final DetectionService detectionService;
+    private final PredictionStreamService streamService;
+    private final LandmarkIngestService landmarkIngestService;
+    private final ResultExportService exportService;
+    private final ResultArchiveService archiveService;
+    private final UserService userService;
 
     // Start a new detection session
     @PostMapping("/start")
+    @RateLimited("start")
     public ResponseEntity<?> startDetection(HttpSession session) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null) {
@@ -38,6 +60,7 @@ public class DetectionController {
 
     // Stop the current detection session
     @PostMapping("/stop")
+    @RateLimited("stop")
     public ResponseEntity<?> stopDetection(HttpSession session) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null) {
@@ -51,6 +74,7 @@ public class DetectionController {
             summary.put("totalPredictions", stopResult.get("totalPredictions"));
             summary.put("averageConfidence", stopResult.get("averageConfidence"));
             summary.put("uniqueSigns", stopResult.get("uniqueSigns"));
+            summary.put("transcript", stopResult.get("transcript"));
         }
 
         return ResponseEntity.ok(Map.of(
@@ -59,60 +83,193 @@ public class DetectionController {
         ));
     }
 
-    // Get latest detection result
+    // Get latest detection result; async so a slow Python worker does not hold a request thread
     @GetMapping("/result")
-    public ResponseEntity<?> getLatestResult(HttpSession session) {
+    @RateLimited(value = "result", upstream = true)
+    public CompletableFuture<ResponseEntity<?>> getLatestResult(HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body(Map.of("error", "Unauthorized")));
+        }
+
+        return detectionService.getLatestPrediction(currentUser.getId())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // Client-side hand tracking: batches of 21x3 landmark frames in the compact binary format
+    @PostMapping(value = "/landmarks", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @RateLimited("landmarks")
+    public ResponseEntity<?> ingestLandmarks(HttpServletRequest request, HttpSession session) throws IOException {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        if (!landmarkIngestService.isAvailable()) {
+            return ResponseEntity.status(503).body(Map.of("error", "Landmark inference is not configured"));
+        }
+
+        try {
+            return ResponseEntity.ok(landmarkIngestService.ingestBinary(currentUser.getId(), request.getInputStream()));
+        } catch (LandmarkIngestService.InvalidBatchException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // JSON fallback of the landmark endpoint
+    @PostMapping(value = "/landmarks", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @RateLimited("landmarks")
+    public ResponseEntity<?> ingestLandmarksJson(@RequestBody LandmarkBatchDto batch, HttpSession session) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
 
-        Map<String, Object> result = detectionService.getLatestPrediction(currentUser.getId());
-        return ResponseEntity.ok(result);
+        if (!landmarkIngestService.isAvailable()) {
+            return ResponseEntity.status(503).body(Map.of("error", "Landmark inference is not configured"));
+        }
+
+        try {
+            return ResponseEntity.ok(landmarkIngestService.ingestJson(currentUser.getId(), batch));
+        } catch (LandmarkIngestService.InvalidBatchException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
     }
 
-    // Get paginated session history for current user
+    // Live prediction stream (SSE); pushes only when letter or confidence changes
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPredictions(HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        SseEmitter emitter = streamService.subscribeSse(currentUser.getId());
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Get paginated session history for current user.
+    // With a "cursor" parameter (empty for the first page) keyset paging is used;
+    // otherwise "page" selects an offset page as before.
     @GetMapping("/sessions")
     public ResponseEntity<?> getSessionHistory(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
             HttpSession session
     ) {
         User currentUser = (User) session.getAttribute("user");
         if (currentUser == null) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and 100"));
+        }
 
-        List<DetectionSession> allSessions = detectionService.getSessionsByUserId(currentUser.getId());
-        int totalSessions = allSessions.size();
-        int totalPages = (int) Math.ceil((double) totalSessions / limit);
-        int fromIndex = Math.min((page - 1) * limit, totalSessions);
-        int toIndex = Math.min(fromIndex + limit, totalSessions);
-
-        List<DetectionSession> pagedSessions = allSessions.subList(fromIndex, toIndex);
+        if (cursor != null) {
+            List<DetectionSessionDto> rows;
+            try {
+                rows = detectionService.getSessionHistoryPage(currentUser.getId(), cursor, limit + 1);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
 
-        List<Map<String, Object>> sessions = pagedSessions.stream().map(s -> {
-            List<DetectionResult> results = s.getResults() != null ? s.getResults() : Collections.emptyList();
-            long duration = s.getEndedAt() != null
-                    ? java.time.Duration.between(s.getCreatedAt(), s.getEndedAt()).toSeconds()
-                    : 0;
+            boolean hasMore = rows.size() > limit;
+            List<DetectionSessionDto> sessions = hasMore ? rows.subList(0, limit) : rows;
 
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", s.getId());
-            map.put("userName", s.getUser().getName()); // <-- added userName
-            map.put("startTime", s.getCreatedAt());
-            map.put("duration", duration);
-            map.put("totalPredictions", results.size());
-            map.put("averageConfidence", results.stream().mapToDouble(DetectionResult::getConfidence).average().orElse(0.0));
-            map.put("letters", results.stream().map(DetectionResult::getLetter).collect(Collectors.toList()));
+            Map<String, Object> body = new HashMap<>();
+            body.put("sessions", sessions);
+            body.put("hasMore", hasMore);
+            body.put("nextCursor", hasMore ? DetectionService.encodeCursor(sessions.get(sessions.size() - 1)) : null);
+            return ResponseEntity.ok(body);
+        }
 
-            return map;
-        }).collect(Collectors.toList());
+        long totalSessions = detectionService.countSessions(currentUser.getId());
+        int totalPages = (int) Math.ceil((double) totalSessions / limit);
+        List<DetectionSessionDto> sessions = detectionService.getSessionHistoryByOffset(currentUser.getId(), page, limit);
 
         return ResponseEntity.ok(Map.of(
                 "sessions", sessions,
                 "totalPages", totalPages,
-                "currentPage", page
+                "currentPage", page,
+                "totalSessions", totalSessions
         ));
     }
+
+    // Results of one of the current user's sessions, archived or not
+    @GetMapping("/sessions/{id}/results")
+    public ResponseEntity<?> getSessionResults(@PathVariable Long id, HttpSession session) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+
+        return archiveService.readResults(id, currentUser.getId())
+                .<ResponseEntity<?>>map(results -> ResponseEntity.ok(Map.of("sessionId", id, "results", results)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Session not found")));
+    }
+
+    // Export the current user's detection results in [from, to) as NDJSON or CSV, streamed (gzip if accepted)
+    @GetMapping("/export")
+    @RateLimited("export")
+    public ResponseEntity<?> exportResults(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpSession session
+    ) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+        return export(currentUser.getId(), format, from, to, acceptEncoding);
+    }
+
+    // Admin variant: results of all users
+    @GetMapping("/export/all")
+    @RateLimited("export")
+    public ResponseEntity<?> exportAllResults(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpSession session
+    ) {
+        User currentUser = (User) session.getAttribute("user");
+        if (currentUser == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+        if (!userService.isAdmin(currentUser)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        return export(null, format, from, to, acceptEncoding);
+    }
+
+    private ResponseEntity<?> export(Long userId, String format, LocalDateTime from, LocalDateTime to,
+                                     String acceptEncoding) {
+        ResultExportService.Format exportFormat;
+        try {
+            exportFormat = ResultExportService.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "format must be ndjson or csv"));
+        }
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> exportService.export(userId, start, end, exportFormat, gzip, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"detections." + exportFormat.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
 }
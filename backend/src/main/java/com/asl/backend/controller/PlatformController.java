@@ -1,11 +1,18 @@
 package com.asl.backend.controller;
 
 import com.asl.backend.dto.PlatformStatsDto;
-import com.asl.backend.repository.DetectionSessionRepository;
 import com.asl.backend.repository.UserRepository;
+import com.asl.backend.service.DetectionMetrics;
+import com.asl.backend.service.InferenceWorkerPool;
+import com.asl.backend.service.PlatformRollupService;
+import com.asl.backend.service.ResponseCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/platform")
 @CrossOrigin(origins = "http://localhost:3000")
@@ -13,23 +20,33 @@ import org.springframework.web.bind.annotation.*;
 public class PlatformController {
 
     private final UserRepository userRepository;
-    private final DetectionSessionRepository detectionSessionRepository;
+    private final PlatformRollupService rollupService;
+    private final InferenceWorkerPool workerPool;
+    private final ResponseCache responseCache;
 
+    // Cached briefly (see ResponseCache); clients revalidate with If-None-Match
     @GetMapping("/stats")
-    public PlatformStatsDto getStats() {
+    public ResponseEntity<?> getStats(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond("platform-stats", ifNoneMatch, this::computeStats);
+    }
+
+    // Changes every second, so it is served apart from the cached stats and their ETag
+    @GetMapping("/uptime")
+    public ResponseEntity<?> getUptime() {
+        return ResponseEntity.ok(Map.of("uptimeSeconds", DetectionMetrics.uptimeSeconds()));
+    }
+
+    private PlatformStatsDto computeStats() {
         // Total active users
         long activeUsers = userRepository.count();
 
-        // Total signs detected (sum of all sessions)
-        Long signsDetected = detectionSessionRepository.getTotalSignsDetected();
-        if (signsDetected == null) signsDetected = 0L;
-
-        // Accuracy rate (average accuracy from sessions)
-        Double averageAccuracy = detectionSessionRepository.getAverageAccuracy();
-        if (averageAccuracy == null) averageAccuracy = 0.0;
+        // Total signs detected and accuracy rate, from the platform rollup
+        PlatformRollupService.PlatformTotals totals = rollupService.getTotals();
+        long signsDetected = totals.totalSigns();
+        double averageAccuracy = totals.getAccuracyRate();
 
-        // Uptime - static for now
-        double uptime = 99.9;
+        // Availability of inference, from the worker health checks
+        double uptime = workerPool.getAvailability();
 
         return new PlatformStatsDto(averageAccuracy, activeUsers, signsDetected, uptime);
     }
@@ -0,0 +1,83 @@
+package com.asl.backend.controller;
+
+import com.asl.backend.entity.User;
+import com.asl.backend.service.PredictionStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * WebSocket variant of GET /api/detection/stream.
+ * The logged-in user is taken from the HTTP session copied in during the handshake.
+ */
+@Component
+@RequiredArgsConstructor
+public class PredictionWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String SUBSCRIBER_ATTR = "predictionSubscriber";
+
+    private final PredictionStreamService streamService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${detection.stream.buffer-size:16}")
+    private int bufferSize;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        User user = (User) session.getAttributes().get("user");
+        if (user == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Unauthorized"));
+            return;
+        }
+
+        WebSocketSubscriber subscriber = new WebSocketSubscriber(session, bufferSize);
+        session.getAttributes().put(SUBSCRIBER_ATTR, subscriber);
+        streamService.register(user.getId(), subscriber);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        User user = (User) session.getAttributes().get("user");
+        Object subscriber = session.getAttributes().get(SUBSCRIBER_ATTR);
+        if (user != null && subscriber instanceof WebSocketSubscriber s) {
+            streamService.unregister(user.getId(), s);
+        }
+    }
+
+    private class WebSocketSubscriber extends PredictionStreamService.Subscriber {
+        private final WebSocketSession session;
+
+        WebSocketSubscriber(WebSocketSession session, int capacity) {
+            super(capacity);
+            this.session = session;
+        }
+
+        @Override
+        protected void send(PredictionStreamService.StreamEvent event) throws IOException {
+            if (PredictionStreamService.EVENT_HEARTBEAT.equals(event.name())) {
+                session.sendMessage(new PingMessage());
+                return;
+            }
+            String json = objectMapper.writeValueAsString(Map.of("event", event.name(), "data", event.data()));
+            session.sendMessage(new TextMessage(json));
+        }
+
+        @Override
+        protected void complete() {
+            try {
+                if (session.isOpen()) session.close(CloseStatus.NORMAL);
+            } catch (IOException ignored) {
+                // connection already gone
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.asl.backend.controller;
 
 import com.asl.backend.dto.*;
 import com.asl.backend.entity.User;
+import com.asl.backend.service.UserLetterStatsService;
 import com.asl.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,7 @@ import jakarta.servlet.http.HttpSession;
 public class UserController {
 
     private final UserService userService;
+    private final UserLetterStatsService letterStatsService;
 
     // Signup
     @PostMapping("/signup")
@@ -81,5 +83,15 @@ public class UserController {
         return ResponseEntity.ok(new Response(true, "Current user fetched", userDto));
     }
 
+    // Lifetime per-letter statistics of the current user
+    @GetMapping("/me/letter-stats")
+    public ResponseEntity<Response> getLetterStats(HttpSession session) {
+        User user = (User) session.getAttribute("user");
+        if (user == null) {
+            return ResponseEntity.status(401).body(new Response(false, "Not logged in", null));
+        }
+        return ResponseEntity.ok(new Response(true, "Letter statistics fetched", letterStatsService.getStats(user.getId())));
+    }
+
     // ✅ Removed /users/active to avoid conflict
 }
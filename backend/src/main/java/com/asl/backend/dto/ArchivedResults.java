@@ -0,0 +1,5 @@
+package com.asl.backend.dto;
+
+/** Archive blob of one session with its owner (projection for streaming exports) */
+public record ArchivedResults(Long sessionId, Long userId, byte[] payload) {
+}
@@ -1,10 +1,10 @@
 package com.asl.backend.dto;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 public class DetectionSessionDto {
     private Long id;
+    private String userName;
     private LocalDateTime startTime;      // maps to createdAt
     private LocalDateTime endedAt;
     private long duration;               // in seconds
@@ -13,11 +13,11 @@ public class DetectionSessionDto {
     private int uniqueSigns;
     private String status;               // "active" or "stopped"
     private String sessionType;          // e.g., practice/assessment/live
-    private List<String> letters;        // detected letters in session
+    private String transcript;           // fingerspelled text of the session
 
     public DetectionSessionDto(Long id, LocalDateTime startTime, LocalDateTime endedAt,
                                double averageConfidence, int totalPredictions, int uniqueSigns,
-                               String status, String sessionType, List<String> letters) {
+                               String status, String sessionType, String transcript) {
         this.id = id;
         this.startTime = startTime;
         this.endedAt = endedAt;
@@ -26,12 +26,25 @@ public class DetectionSessionDto {
         this.uniqueSigns = uniqueSigns;
         this.status = status;
         this.sessionType = sessionType;
-        this.letters = letters;
+        this.transcript = transcript;
         this.duration = endedAt != null ? java.time.Duration.between(startTime, endedAt).getSeconds() : 0;
     }
 
+    // Projection constructor used by DetectionSessionRepository: one query, no result entities
+    public DetectionSessionDto(Long id, String userName, LocalDateTime startTime, LocalDateTime endedAt,
+                               Long predictionCount, Double confidenceSum, Integer letterMask,
+                               String status, String sessionType, String transcript) {
+        this(id, startTime, endedAt,
+                predictionCount != null && predictionCount > 0 ? confidenceSum / predictionCount : 0.0,
+                predictionCount != null ? predictionCount.intValue() : 0,
+                letterMask != null ? Integer.bitCount(letterMask) : 0,
+                status, sessionType, transcript);
+        this.userName = userName;
+    }
+
     // Getters
     public Long getId() { return id; }
+    public String getUserName() { return userName; }
     public LocalDateTime getStartTime() { return startTime; }
     public LocalDateTime getEndedAt() { return endedAt; }
     public long getDuration() { return duration; }
@@ -40,5 +53,5 @@ public class DetectionSessionDto {
     public int getUniqueSigns() { return uniqueSigns; }
     public String getStatus() { return status; }
     public String getSessionType() { return sessionType; }
-    public List<String> getLetters() { return letters; }
+    public String getTranscript() { return transcript; }
 }
@@ -0,0 +1,24 @@
+package com.asl.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** JSON fallback for POST /api/detection/landmarks */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LandmarkBatchDto {
+    private List<Frame> frames;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Frame {
+        private long seq;          // client sequence number, increasing per session
+        private long timestamp;    // client capture time, epoch millis
+        private float[] landmarks; // 21 landmarks x (x, y, z)
+    }
+}
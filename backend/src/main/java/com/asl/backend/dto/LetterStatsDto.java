@@ -0,0 +1,11 @@
+package com.asl.backend.dto;
+
+import java.util.List;
+
+/** GET /api/users/me/letter-stats: one entry per class in alphabet order, and the weakest practiced letters */
+public record LetterStatsDto(List<Letter> letters, List<String> weakest) {
+
+    /** averageConfidence and recentConfidence are null for classes never detected */
+    public record Letter(String letter, long count, Double averageConfidence, Double recentConfidence) {
+    }
+}
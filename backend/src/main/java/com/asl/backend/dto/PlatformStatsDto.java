@@ -10,5 +10,5 @@ public class PlatformStatsDto {
     private double accuracyRate;
     private long activeUsers;
     private long signsDetected;
-    private double uptime;
+    private double uptime;          // % of health checks in which inference was available
 }
@@ -0,0 +1,9 @@
+package com.asl.backend.dto;
+
+import java.time.LocalDateTime;
+
+/** One detection result as exported by /api/detection/export (projection, never a managed entity) */
+public record ResultExportRow(Long resultId, Long sessionId, Long userId, String letter, double confidence,
+                              int observations, LocalDateTime detectedAt, LocalDateTime startedAt,
+                              LocalDateTime endedAt, String upstreamTimestamp) {
+}
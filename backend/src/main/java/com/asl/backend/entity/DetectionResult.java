@@ -3,24 +3,60 @@ package com.asl.backend.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = @Index(name = "idx_detection_result_session_detected", columnList = "session_id, detected_at"))
 public class DetectionResult {
 
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detection_result_seq")
+    @SequenceGenerator(name = "detection_result_seq", sequenceName = "detection_result_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String letter;       // Detected ASL letter
 
     @Column(nullable = false)
-    private double confidence;   // Confidence of detection
+    private double confidence;   // Confidence of detection (average over the run)
+
+    // Run-length fields: one row covers consecutive observations of the same letter.
+    // Rows written before run-length storage have nulls here and count as one observation.
+    private LocalDateTime startedAt;
+    private LocalDateTime endedAt;
+    private Integer observations;
+    private Double confidenceSum;
+    private Double minConfidence;
+    private Double maxConfidence;
+
+    // When the row's first observation was recorded (BRIN-indexed, see DetectedAtBackfill),
+    // and the detection loop's own timestamp for it as sent by Python
+    private LocalDateTime detectedAt;
+    @Column(length = 40)
+    private String upstreamTimestamp;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
     private DetectionSession session;
+
+    // Journal positions of the first and last observation folded into this row (0 when not journaled)
+    @Transient
+    private long journalFirstSeq;
+    @Transient
+    private long journalLastSeq;
+
+    /** Number of predictions this row stands for */
+    public int getObservationCount() {
+        return observations != null ? observations : 1;
+    }
+
+    /** Sum of confidences over the run, for exact averages across rows */
+    public double getConfidenceTotal() {
+        return confidenceSum != null ? confidenceSum : confidence;
+    }
 }
@@ -1,5 +1,6 @@
 package com.asl.backend.entity;
 
+import com.asl.backend.util.AslAlphabet;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
@@ -11,7 +12,8 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "detection_sessions") // avoid generic names
+@Table(name = "detection_sessions", // avoid generic names
+       indexes = @Index(name = "idx_detection_sessions_user_created", columnList = "user_id, created_at DESC, id DESC"))
 public class DetectionSession {
 
     @Id
@@ -25,12 +27,61 @@ public class DetectionSession {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<DetectionResult> results = new ArrayList<>();
 
     private String status;       // "active" or "stopped"
     private String sessionType;  // practice/assessment/live
 
+    // Fingerspelled text, appended in place by DetectionTranscriber
+    @Column(columnDefinition = "text")
+    private String transcript;
+
+    // Running aggregates, updated per observation so summaries never scan results.
+    // A null predictionCount marks a session that still needs the backfill job.
+    private Long predictionCount;
+    private Double confidenceSum;
+    private Double minConfidence;
+    private Double maxConfidence;
+    private Integer letterMask;  // bit i set = AslAlphabet class i seen
+
+    // Journal position of the last observation stored in this session's results, see DetectionJournal
+    private Long journalSeq;
+
+    /** Start all aggregates at zero for a new session */
+    public void initAggregates() {
+        predictionCount = 0L;
+        confidenceSum = 0.0;
+        letterMask = 0;
+    }
+
+    /** O(1) update of the running aggregates with one observation */
+    public synchronized void recordObservation(String letter, double confidence) {
+        if (predictionCount == null) initAggregates();
+        predictionCount++;
+        confidenceSum += confidence;
+        minConfidence = minConfidence == null ? confidence : Math.min(minConfidence, confidence);
+        maxConfidence = maxConfidence == null ? confidence : Math.max(maxConfidence, confidence);
+        letterMask |= AslAlphabet.bit(letter);
+    }
+
+    public long getTotalPredictions() {
+        return predictionCount != null ? predictionCount : 0;
+    }
+
+    public double getAverageConfidence() {
+        return predictionCount != null && predictionCount > 0 ? confidenceSum / predictionCount : 0.0;
+    }
+
+    public int getUniqueSigns() {
+        return letterMask != null ? Integer.bitCount(letterMask) : 0;
+    }
+
+    /** Duration in seconds, 0 while the session is still running */
+    public long getDurationSeconds() {
+        return createdAt != null && endedAt != null ? java.time.Duration.between(createdAt, endedAt).toSeconds() : 0;
+    }
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) createdAt = LocalDateTime.now();
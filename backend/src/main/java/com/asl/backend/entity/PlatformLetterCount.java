@@ -0,0 +1,19 @@
+package com.asl.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "platform_letter_counts")
+public class PlatformLetterCount {
+
+    @Id
+    private String letter;
+
+    @Column(nullable = false)
+    private long count;
+}
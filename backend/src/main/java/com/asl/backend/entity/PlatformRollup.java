@@ -0,0 +1,32 @@
+package com.asl.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Single-row rollup of platform-wide detection totals.
+ * Maintained in the same transaction as the result writes, so dashboards
+ * read it in constant time instead of scanning sessions and results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "platform_rollup")
+public class PlatformRollup {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private long totalSessions;
+
+    @Column(nullable = false)
+    private long totalSigns;      // observations across all results
+
+    @Column(nullable = false)
+    private double confidenceSum; // sum of confidences, for the average accuracy
+}
@@ -0,0 +1,31 @@
+package com.asl.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detection results of a closed session packed into one blob (ResultArchiveCodec),
+ * written once the session's rows have been idle long enough; the rows are then deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "detection_result_archives")
+public class SessionResultArchive {
+
+    @Id
+    private Long sessionId;
+
+    @Column(nullable = false)
+    private int resultCount;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+}
@@ -0,0 +1,62 @@
+package com.asl.backend.entity;
+
+import com.asl.backend.util.AslAlphabet;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime per-letter statistics of one user: one row holding three arrays indexed by
+ * AslAlphabet class index (observations, confidence sums and an exponential moving
+ * average of recent confidence). Updated in the transaction that writes the results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_letter_stats")
+public class UserLetterStats {
+
+    @Id
+    private Long userId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(nullable = false)
+    private long[] counts;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(nullable = false)
+    private double[] confidenceSums;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(nullable = false)
+    private double[] recentConfidence;
+
+    private LocalDateTime updatedAt;
+
+    public static UserLetterStats empty(Long userId) {
+        return new UserLetterStats(userId, new long[AslAlphabet.NUM_CLASSES],
+                new double[AslAlphabet.NUM_CLASSES], new double[AslAlphabet.NUM_CLASSES], null);
+    }
+
+    /**
+     * Count a run of observations of class {@code index} with the given confidence total.
+     * The moving average decays once per observation: n observations of average c move it
+     * to ema * (1 - alpha)^n + c * (1 - (1 - alpha)^n). The first run of a class sets it to c.
+     */
+    public void add(int index, long observations, double confidenceTotal, double alpha) {
+        double average = confidenceTotal / observations;
+        if (counts[index] == 0) {
+            recentConfidence[index] = average;
+        } else {
+            double keep = Math.pow(1 - alpha, observations);
+            recentConfidence[index] = recentConfidence[index] * keep + average * (1 - keep);
+        }
+        counts[index] += observations;
+        confidenceSums[index] += confidenceTotal;
+    }
+}
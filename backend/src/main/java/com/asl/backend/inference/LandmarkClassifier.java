@@ -0,0 +1,92 @@
+package com.asl.backend.inference;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-process classifier for 63-float hand landmark vectors.
+ * Loads the model exported by aslmodel/src/export_weights.py from
+ * {@code inference.model.path}; when no path is configured the engine stays
+ * unavailable and callers fall back to the Python service.
+ */
+@Service
+@Slf4j
+public class LandmarkClassifier {
+
+    /** Best class and its probability */
+    public record Prediction(String letter, double confidence) {}
+
+    @Value("${inference.model.path:}")
+    private String modelPath;
+
+    private volatile LandmarkModel model;
+    private ThreadLocal<Scratch> scratch;
+
+    @PostConstruct
+    public void init() {
+        if (modelPath == null || modelPath.isBlank()) {
+            log.info("No inference.model.path configured, in-JVM landmark inference disabled");
+            return;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(modelPath)))) {
+            use(LandmarkModel.load(in));
+            log.info("Loaded landmark model from {} ({} classes)", modelPath, model.getNumClasses());
+        } catch (IOException e) {
+            log.error("Could not load landmark model from {}: {}", modelPath, e.getMessage());
+        }
+    }
+
+    /** Install a model directly (tests, warm-up) */
+    public void use(LandmarkModel loaded) {
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(loaded));
+        this.model = loaded;
+    }
+
+    public boolean isAvailable() {
+        return model != null;
+    }
+
+    public int getInputDim() {
+        return model.getInputDim();
+    }
+
+    /**
+     * Allocation-free classification: fills {@code probabilities} and returns the class index.
+     */
+    public int classify(float[] landmarks, float[] probabilities) {
+        LandmarkModel m = requireModel();
+        return m.predict(landmarks, probabilities, scratch.get().workspace);
+    }
+
+    /** Classify one landmark vector; the letter is one of the model's class names */
+    public Prediction classify(float[] landmarks) {
+        LandmarkModel m = requireModel();
+        Scratch s = scratch.get();
+        int best = m.predict(landmarks, s.probabilities, s.workspace);
+        return new Prediction(m.getClassNames().get(best), s.probabilities[best]);
+    }
+
+    private LandmarkModel requireModel() {
+        LandmarkModel m = model;
+        if (m == null) throw new IllegalStateException("Landmark model is not loaded");
+        return m;
+    }
+
+    private static final class Scratch {
+        private final LandmarkModel.Workspace workspace;
+        private final float[] probabilities;
+
+        Scratch(LandmarkModel model) {
+            this.workspace = model.newWorkspace();
+            this.probabilities = new float[model.getNumClasses()];
+        }
+    }
+}
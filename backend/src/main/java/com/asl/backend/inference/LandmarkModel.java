@@ -0,0 +1,202 @@
+package com.asl.backend.inference;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java port of the landmark MLP trained by aslmodel/src/train.py:
+ * StandardScaler, then a stack of CustomDense layers (matmul + bias + relu/softmax).
+ * Dropout layers are identity at inference time and are not part of the export.
+ *
+ * Weights are loaded from the little-endian format written by
+ * aslmodel/src/export_weights.py (see that file for the exact layout).
+ * The forward pass works on caller-provided float[] buffers and does not allocate.
+ */
+public final class LandmarkModel {
+
+    public static final int ACTIVATION_LINEAR = 0;
+    public static final int ACTIVATION_RELU = 1;
+    public static final int ACTIVATION_SOFTMAX = 2;
+
+    private static final int MAGIC = 0x4D4C5341; // "ASLM" read as a little-endian int
+    private static final int VERSION = 1;
+
+    private final int inputDim;
+    private final int[] inSizes;
+    private final int[] outSizes;
+    private final int[] activations;
+    private final float[][] kernels;   // [layer][in * out], row-major like Keras
+    private final float[][] biases;    // [layer][out]
+    private final float[] mean;
+    private final float[] invScale;    // 1 / scaler.scale_
+    private final List<String> classNames;
+    private final int maxWidth;
+
+    private LandmarkModel(int inputDim, int[] inSizes, int[] outSizes, int[] activations,
+                          float[][] kernels, float[][] biases, float[] mean, float[] scale,
+                          List<String> classNames) {
+        this.inputDim = inputDim;
+        this.inSizes = inSizes;
+        this.outSizes = outSizes;
+        this.activations = activations;
+        this.kernels = kernels;
+        this.biases = biases;
+        this.mean = mean;
+        this.classNames = List.copyOf(classNames);
+
+        this.invScale = new float[scale.length];
+        for (int i = 0; i < scale.length; i++) {
+            invScale[i] = scale[i] != 0f ? 1f / scale[i] : 1f;
+        }
+
+        int width = inputDim;
+        for (int out : outSizes) width = Math.max(width, out);
+        this.maxWidth = width;
+    }
+
+    /** Read a model exported by export_weights.py */
+    public static LandmarkModel load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (readInt(data) != MAGIC) throw new IOException("Not a landmark model file (bad magic)");
+        int version = readInt(data);
+        if (version != VERSION) throw new IOException("Unsupported landmark model version " + version);
+
+        int inputDim = readInt(data);
+        int layers = readInt(data);
+        int[] inSizes = new int[layers];
+        int[] outSizes = new int[layers];
+        int[] activations = new int[layers];
+        float[][] kernels = new float[layers][];
+        float[][] biases = new float[layers][];
+
+        int expectedIn = inputDim;
+        for (int l = 0; l < layers; l++) {
+            inSizes[l] = readInt(data);
+            outSizes[l] = readInt(data);
+            activations[l] = readInt(data);
+            if (inSizes[l] != expectedIn) {
+                throw new IOException("Layer " + l + " expects " + inSizes[l] + " inputs, previous layer has " + expectedIn);
+            }
+            if (activations[l] < ACTIVATION_LINEAR || activations[l] > ACTIVATION_SOFTMAX) {
+                throw new IOException("Unknown activation " + activations[l] + " in layer " + l);
+            }
+            kernels[l] = readFloats(data, inSizes[l] * outSizes[l]);
+            biases[l] = readFloats(data, outSizes[l]);
+            expectedIn = outSizes[l];
+        }
+
+        int n = readInt(data);
+        if (n != inputDim) throw new IOException("Scaler has " + n + " features, model expects " + inputDim);
+        float[] mean = readFloats(data, n);
+        float[] scale = readFloats(data, n);
+
+        int classCount = readInt(data);
+        if (classCount != expectedIn) throw new IOException("Model has " + expectedIn + " outputs but " + classCount + " class names");
+        List<String> classNames = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            int length = Short.toUnsignedInt(Short.reverseBytes(data.readShort()));
+            classNames.add(new String(data.readNBytes(length), StandardCharsets.UTF_8));
+        }
+
+        return new LandmarkModel(inputDim, inSizes, outSizes, activations, kernels, biases, mean, scale, classNames);
+    }
+
+    public int getInputDim() { return inputDim; }
+    public int getNumClasses() { return classNames.size(); }
+    public List<String> getClassNames() { return classNames; }
+
+    /** Scratch buffers for one thread; reuse them across calls */
+    public Workspace newWorkspace() {
+        return new Workspace(maxWidth);
+    }
+
+    /**
+     * Run the forward pass.
+     * Writes class probabilities into {@code probabilities} (length >= number of classes)
+     * and returns the index of the most likely class.
+     */
+    public int predict(float[] landmarks, float[] probabilities, Workspace ws) {
+        if (landmarks.length < inputDim) {
+            throw new IllegalArgumentException("Expected " + inputDim + " landmark values, got " + landmarks.length);
+        }
+
+        float[] x = ws.a;
+        float[] y = ws.b;
+        for (int i = 0; i < inputDim; i++) {
+            x[i] = (landmarks[i] - mean[i]) * invScale[i];
+        }
+
+        for (int l = 0; l < kernels.length; l++) {
+            dense(x, inSizes[l], kernels[l], biases[l], outSizes[l], y);
+            activate(y, outSizes[l], activations[l]);
+            float[] t = x; x = y; y = t;
+        }
+
+        int classes = getNumClasses();
+        int best = 0;
+        for (int j = 0; j < classes; j++) {
+            probabilities[j] = x[j];
+            if (x[j] > x[best]) best = j;
+        }
+        return best;
+    }
+
+    // y = x . W + b, iterating W row by row so the inner loop is contiguous
+    private static void dense(float[] x, int in, float[] w, float[] b, int out, float[] y) {
+        System.arraycopy(b, 0, y, 0, out);
+        for (int i = 0; i < in; i++) {
+            float xi = x[i];
+            if (xi == 0f) continue; // common after relu
+            int row = i * out;
+            for (int j = 0; j < out; j++) {
+                y[j] += xi * w[row + j];
+            }
+        }
+    }
+
+    private static void activate(float[] y, int n, int activation) {
+        if (activation == ACTIVATION_RELU) {
+            for (int j = 0; j < n; j++) {
+                if (y[j] < 0f) y[j] = 0f;
+            }
+        } else if (activation == ACTIVATION_SOFTMAX) {
+            float max = y[0];
+            for (int j = 1; j < n; j++) max = Math.max(max, y[j]);
+            float sum = 0f;
+            for (int j = 0; j < n; j++) {
+                y[j] = (float) Math.exp(y[j] - max); // shifted for numerical stability, as custom_softmax
+                sum += y[j];
+            }
+            for (int j = 0; j < n; j++) y[j] /= sum;
+        }
+    }
+
+    private static int readInt(DataInputStream in) throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        byte[] bytes = in.readNBytes(count * Float.BYTES);
+        if (bytes.length != count * Float.BYTES) throw new IOException("Unexpected end of model file");
+        float[] values = new float[count];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    /** Per-thread activation buffers sized for the widest layer */
+    public static final class Workspace {
+        private final float[] a;
+        private final float[] b;
+
+        private Workspace(int width) {
+            this.a = new float[width];
+            this.b = new float[width];
+        }
+    }
+}
@@ -1,9 +1,90 @@
 package com.asl.backend.repository;
 
+import com.asl.backend.dto.ResultExportRow;
 import com.asl.backend.entity.DetectionResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface DetectionResultRepository extends JpaRepository<DetectionResult, Long> {
+
+    // Per-session aggregates for the backfill job, computed in the database
+    @Query("SELECT r.session.id AS sessionId, SUM(COALESCE(r.observations, 1)) AS count, " +
+           "SUM(COALESCE(r.confidenceSum, r.confidence)) AS confidenceSum, " +
+           "MIN(COALESCE(r.minConfidence, r.confidence)) AS minConfidence, " +
+           "MAX(COALESCE(r.maxConfidence, r.confidence)) AS maxConfidence " +
+           "FROM DetectionResult r WHERE r.session.id IN :sessionIds GROUP BY r.session.id")
+    List<SessionAggregate> aggregateBySession(@Param("sessionIds") Collection<Long> sessionIds);
+
+    // Distinct letters per session, for the backfilled letter mask
+    @Query("SELECT DISTINCT r.session.id AS sessionId, r.letter AS letter FROM DetectionResult r " +
+           "WHERE r.session.id IN :sessionIds")
+    List<SessionLetter> distinctLettersBySession(@Param("sessionIds") Collection<Long> sessionIds);
+
+    // Export rows read through a server-side cursor; consume inside a (read-only) transaction and close the stream
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.asl.backend.dto.ResultExportRow(r.id, s.id, u.id, r.letter, r.confidence, " +
+           "COALESCE(r.observations, 1), r.detectedAt, r.startedAt, r.endedAt, r.upstreamTimestamp) " +
+           "FROM DetectionResult r JOIN r.session s JOIN s.user u " +
+           "WHERE u.id = :userId AND r.detectedAt >= :from AND r.detectedAt < :to ORDER BY r.id")
+    Stream<ResultExportRow> streamExportForUser(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.asl.backend.dto.ResultExportRow(r.id, s.id, u.id, r.letter, r.confidence, " +
+           "COALESCE(r.observations, 1), r.detectedAt, r.startedAt, r.endedAt, r.upstreamTimestamp) " +
+           "FROM DetectionResult r JOIN r.session s JOIN s.user u " +
+           "WHERE r.detectedAt >= :from AND r.detectedAt < :to ORDER BY r.id")
+    Stream<ResultExportRow> streamExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Time of a session's last stored observation, null when it has no rows
+    @Query("SELECT MAX(COALESCE(r.endedAt, r.detectedAt)) FROM DetectionResult r WHERE r.session.id = :sessionId")
+    LocalDateTime findLastObservedAt(@Param("sessionId") Long sessionId);
+
+    // Rows of one session in write order, for archiving
+    @Query("SELECT r FROM DetectionResult r WHERE r.session.id = :sessionId ORDER BY r.id")
+    List<DetectionResult> findBySessionOrdered(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query("DELETE FROM DetectionResult r WHERE r.session.id = :sessionId")
+    int deleteBySession(@Param("sessionId") Long sessionId);
+
+    // Per-user, per-letter totals, to seed the letter statistics on first start
+    @Query("SELECT r.session.user.id AS userId, r.letter AS letter, SUM(COALESCE(r.observations, 1)) AS count, " +
+           "SUM(COALESCE(r.confidenceSum, r.confidence)) AS confidenceSum " +
+           "FROM DetectionResult r GROUP BY r.session.user.id, r.letter")
+    List<UserLetterTotal> totalsByUserAndLetter();
+
+    interface SessionAggregate {
+        Long getSessionId();
+        Long getCount();
+        Double getConfidenceSum();
+        Double getMinConfidence();
+        Double getMaxConfidence();
+    }
+
+    interface SessionLetter {
+        Long getSessionId();
+        String getLetter();
+    }
+
+    interface UserLetterTotal {
+        Long getUserId();
+        String getLetter();
+        Long getCount();
+        Double getConfidenceSum();
+    }
 }
@@ -1,23 +1,81 @@
 package com.asl.backend.repository;
 
+import com.asl.backend.dto.DetectionSessionDto;
 import com.asl.backend.entity.DetectionSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface DetectionSessionRepository extends JpaRepository<DetectionSession, Long> {
 
-    // Fetch all sessions for a specific user ordered by creation time descending
-    List<DetectionSession> findByUser_IdOrderByCreatedAtDesc(Long userId);
+    long countByUser_Id(Long userId);
 
-    // Total signs detected = count of all results linked to sessions
-    @Query("SELECT COUNT(r) FROM DetectionResult r")
-    Long getTotalSignsDetected();
+    // History rows as DTOs, newest first; (created_at, id) keeps the order total
+    @Query("SELECT new com.asl.backend.dto.DetectionSessionDto(s.id, u.name, s.createdAt, s.endedAt, " +
+           "s.predictionCount, s.confidenceSum, s.letterMask, s.status, s.sessionType, s.transcript) " +
+           "FROM DetectionSession s JOIN s.user u WHERE u.id = :userId " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<DetectionSessionDto> findHistory(@Param("userId") Long userId, Pageable pageable);
 
-    // Average accuracy = average confidence across all detection results
-    @Query("SELECT AVG(r.confidence) FROM DetectionResult r")
-    Double getAverageAccuracy();
+    // Keyset page after the cursor row; the redundant createdAt bound gives the index a start key
+    @Query("SELECT new com.asl.backend.dto.DetectionSessionDto(s.id, u.name, s.createdAt, s.endedAt, " +
+           "s.predictionCount, s.confidenceSum, s.letterMask, s.status, s.sessionType, s.transcript) " +
+           "FROM DetectionSession s JOIN s.user u WHERE u.id = :userId AND s.createdAt <= :createdAt " +
+           "AND (s.createdAt < :createdAt OR s.id < :id) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<DetectionSessionDto> findHistoryAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id, Pageable pageable);
+
+    // Close a session without merging its results collection
+    @Modifying
+    @Transactional
+    @Query("UPDATE DetectionSession s SET s.status = :status, s.endedAt = :endedAt WHERE s.id = :id")
+    int markEnded(@Param("id") Long id, @Param("status") String status, @Param("endedAt") LocalDateTime endedAt);
+
+    // Persist the running aggregates of a session (absolute values, so repeated writes are safe)
+    @Modifying
+    @Transactional
+    @Query("UPDATE DetectionSession s SET s.predictionCount = :count, s.confidenceSum = :sum, " +
+           "s.minConfidence = :min, s.maxConfidence = :max, s.letterMask = :mask WHERE s.id = :id")
+    int updateAggregates(@Param("id") Long id, @Param("count") Long count, @Param("sum") Double sum,
+                         @Param("min") Double min, @Param("max") Double max, @Param("mask") Integer mask);
+
+    // Journal position up to which the session's observations are stored, written with each result batch
+    @Modifying
+    @Transactional
+    @Query("UPDATE DetectionSession s SET s.journalSeq = :seq WHERE s.id = :id")
+    int updateJournalSeq(@Param("id") Long id, @Param("seq") Long seq);
+
+    // Sessions still marked active, for closing the ones no node owns any more
+    @Query("SELECT s FROM DetectionSession s JOIN FETCH s.user WHERE s.status = 'active'")
+    List<DetectionSession> findActive();
+
+    // Apply transcript edits in place: drop the last :deleted characters, then append (no read-modify-write)
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE detection_sessions SET transcript = " +
+           "left(COALESCE(transcript, ''), GREATEST(length(COALESCE(transcript, '')) - :deleted, 0)) || :appended " +
+           "WHERE id = :id", nativeQuery = true)
+    int appendTranscript(@Param("id") Long id, @Param("deleted") int deleted, @Param("appended") String appended);
+
+    @Query("SELECT s.transcript FROM DetectionSession s WHERE s.id = :id")
+    String findTranscript(@Param("id") Long id);
+
+    // Next chunk of sessions created before running aggregates existed
+    @Query("SELECT s.id FROM DetectionSession s WHERE s.predictionCount IS NULL AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsMissingAggregates(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Next chunk of stopped sessions, ended before the cut-off, that still have result rows
+    @Query("SELECT s.id FROM DetectionSession s WHERE s.status = 'stopped' AND s.endedAt < :endedBefore " +
+           "AND s.id > :afterId AND EXISTS (SELECT 1 FROM DetectionResult r WHERE r.session = s) ORDER BY s.id")
+    List<Long> findIdsToArchive(@Param("endedBefore") LocalDateTime endedBefore, @Param("afterId") Long afterId,
+                                Pageable pageable);
 }
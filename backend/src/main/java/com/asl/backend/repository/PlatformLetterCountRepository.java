@@ -0,0 +1,25 @@
+package com.asl.backend.repository;
+
+import com.asl.backend.entity.PlatformLetterCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlatformLetterCountRepository extends JpaRepository<PlatformLetterCount, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO platform_letter_counts (letter, count) VALUES (:letter, :count) " +
+                   "ON CONFLICT (letter) DO UPDATE SET count = platform_letter_counts.count + EXCLUDED.count",
+           nativeQuery = true)
+    int add(@Param("letter") String letter, @Param("count") long count);
+
+    // Seed per-letter counts from existing results (first start only)
+    @Modifying
+    @Query(value = "INSERT INTO platform_letter_counts (letter, count) " +
+                   "SELECT r.letter, SUM(COALESCE(r.observations, 1)) FROM detection_result r GROUP BY r.letter " +
+                   "ON CONFLICT (letter) DO NOTHING", nativeQuery = true)
+    int seed();
+}
@@ -0,0 +1,30 @@
+package com.asl.backend.repository;
+
+import com.asl.backend.entity.PlatformRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlatformRollupRepository extends JpaRepository<PlatformRollup, Integer> {
+
+    @Modifying
+    @Query(value = "UPDATE platform_rollup SET total_sessions = total_sessions + 1 WHERE id = 1", nativeQuery = true)
+    int incrementSessions();
+
+    @Modifying
+    @Query(value = "UPDATE platform_rollup SET total_signs = total_signs + :signs, " +
+                   "confidence_sum = confidence_sum + :confidence WHERE id = 1", nativeQuery = true)
+    int addSigns(@Param("signs") long signs, @Param("confidence") double confidence);
+
+    // Seed the rollup from existing data (first start only)
+    @Modifying
+    @Query(value = "INSERT INTO platform_rollup (id, total_sessions, total_signs, confidence_sum) " +
+                   "SELECT 1, (SELECT COUNT(*) FROM detection_sessions), " +
+                   "COALESCE(SUM(COALESCE(r.observations, 1)), 0), " +
+                   "COALESCE(SUM(COALESCE(r.confidence_sum, r.confidence)), 0) FROM detection_result r " +
+                   "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int seed();
+}
@@ -0,0 +1,41 @@
+package com.asl.backend.repository;
+
+import com.asl.backend.dto.ArchivedResults;
+import com.asl.backend.entity.SessionResultArchive;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface SessionResultArchiveRepository extends JpaRepository<SessionResultArchive, Long> {
+
+    // Archives of a user's sessions overlapping [from, to); small fetch size, as each row holds a whole session
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "20"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.asl.backend.dto.ArchivedResults(a.sessionId, s.user.id, a.payload) " +
+           "FROM SessionResultArchive a, DetectionSession s WHERE s.id = a.sessionId AND s.user.id = :userId " +
+           "AND s.createdAt < :to AND s.endedAt >= :from ORDER BY a.sessionId")
+    Stream<ArchivedResults> streamForUser(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "20"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.asl.backend.dto.ArchivedResults(a.sessionId, s.user.id, a.payload) " +
+           "FROM SessionResultArchive a, DetectionSession s WHERE s.id = a.sessionId " +
+           "AND s.createdAt < :to AND s.endedAt >= :from ORDER BY a.sessionId")
+    Stream<ArchivedResults> streamAll(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Every archive, to seed the per-user letter statistics
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "20"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.asl.backend.dto.ArchivedResults(a.sessionId, s.user.id, a.payload) " +
+           "FROM SessionResultArchive a, DetectionSession s WHERE s.id = a.sessionId ORDER BY a.sessionId")
+    Stream<ArchivedResults> streamAll();
+}
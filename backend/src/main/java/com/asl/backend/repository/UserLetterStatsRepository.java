@@ -0,0 +1,29 @@
+package com.asl.backend.repository;
+
+import com.asl.backend.entity.UserLetterStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserLetterStatsRepository extends JpaRepository<UserLetterStats, Long> {
+
+    // Create the user's row if missing, so it can be locked below
+    @Modifying
+    @Query(value = "INSERT INTO user_letter_stats (user_id, counts, confidence_sums, recent_confidence, updated_at) " +
+                   "VALUES (:userId, array_fill(0::bigint, ARRAY[:classes]), array_fill(0::float8, ARRAY[:classes]), " +
+                   "array_fill(0::float8, ARRAY[:classes]), now()) ON CONFLICT (user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertEmpty(@Param("userId") Long userId, @Param("classes") int classes);
+
+    // Row lock held until commit: batches of concurrent sessions of one user apply one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserLetterStats s WHERE s.userId = :userId")
+    Optional<UserLetterStats> findForUpdate(@Param("userId") Long userId);
+}
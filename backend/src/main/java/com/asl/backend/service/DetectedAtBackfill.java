@@ -0,0 +1,75 @@
+package com.asl.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Time index of detection results.
+ * Creates the BRIN index on {@code detected_at} (rows are appended in time order, so a
+ * BRIN index of a few pages serves time-range scans), then fills {@code detected_at} of
+ * rows written before it existed from the run start, or else the session start, one
+ * chunk per tick. Goes idle once no row is left without it.
+ * The index is built CONCURRENTLY, outside any transaction, so inserts of results go on
+ * during the build.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DetectedAtBackfill {
+
+    private static final String INDEX = "idx_detection_result_detected_brin";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${detection.results.detected-at-backfill-chunk-size:5000}")
+    private int chunkSize;
+
+    // id of the last row of the previous chunk; the next tick continues after it
+    private long afterId;
+    private int total;
+    private boolean indexed;
+    private volatile boolean done;
+
+    @Scheduled(initialDelayString = "${detection.results.detected-at-backfill-delay-ms:10000}",
+               fixedDelayString = "${detection.results.detected-at-backfill-interval-ms:5000}")
+    public synchronized void run() {
+        if (done) return;
+
+        if (!indexed) {
+            createIndex();
+            indexed = true;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM detection_result " +
+                "WHERE detected_at IS NULL AND id > ? ORDER BY id LIMIT ?", Long.class, afterId, chunkSize);
+        if (ids.isEmpty()) {
+            if (total > 0) log.info("Backfilled detected_at for {} detection results", total);
+            done = true;
+            return;
+        }
+
+        long lastId = ids.get(ids.size() - 1);
+        total += jdbcTemplate.update("UPDATE detection_result r " +
+                "SET detected_at = COALESCE(r.started_at, s.created_at) FROM detection_sessions s " +
+                "WHERE s.id = r.session_id AND r.detected_at IS NULL AND r.id > ? AND r.id <= ?", afterId, lastId);
+        afterId = lastId;
+    }
+
+    // Statements run on their own auto-commit connection: CONCURRENTLY is not allowed in a transaction
+    private void createIndex() {
+        Boolean valid = jdbcTemplate.query("SELECT i.indisvalid FROM pg_index i " +
+                "JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?",
+                rs -> rs.next() ? rs.getBoolean(1) : null, INDEX);
+        if (Boolean.TRUE.equals(valid)) return;
+        // a concurrent build that failed or was interrupted leaves an invalid index behind
+        if (valid != null) jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + INDEX);
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX +
+                " ON detection_result USING brin (detected_at)");
+    }
+}
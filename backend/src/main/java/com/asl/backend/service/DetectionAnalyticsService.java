@@ -0,0 +1,157 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ArchivedResults;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.util.ResultArchiveCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Time-range analytics over detection results, aggregated in the database.
+ * Buckets come from {@code date_bin} (PostgreSQL 14+) over {@code detected_at}, whose
+ * BRIN index serves the range scan; each bucket is written to the response as its row
+ * is read, so no result rows are loaded into the JVM. A run-length row counts all its
+ * observations in the bucket of its first observation. Sessions archived in the range
+ * (ResultArchiveService) are decoded one at a time into per-bucket sums first, then merged
+ * with the database buckets as they are written, so memory is bounded by max-buckets.
+ */
+@Service
+public class DetectionAnalyticsService {
+
+    private static final String TIMESERIES_SQL =
+            "SELECT date_bin(CAST(? AS interval), r.detected_at, ?) AS bucket, " +
+            "SUM(COALESCE(r.observations, 1)) AS signs, " +
+            "SUM(COALESCE(r.confidence_sum, r.confidence)) AS confidence_sum, " +
+            "COUNT(DISTINCT r.session_id) AS sessions " +
+            "FROM detection_result r WHERE r.detected_at >= ? AND r.detected_at < ? " +
+            "GROUP BY bucket ORDER BY bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionResultArchiveRepository archiveRepo;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    @Value("${detection.timeseries.max-buckets:10000}")
+    private long maxBuckets;
+
+    public DetectionAnalyticsService(JdbcTemplate jdbcTemplate, SessionResultArchiveRepository archiveRepo,
+                                     PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveRepo = archiveRepo;
+        this.objectMapper = objectMapper;
+        // the driver only streams with a cursor inside a transaction
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /** Reject ranges that are empty or would produce more than max-buckets buckets */
+    public void validateRange(LocalDateTime from, LocalDateTime to, Duration bucket) {
+        if (bucket.isNegative() || bucket.isZero()) throw new IllegalArgumentException("bucket must be positive");
+        if (!from.isBefore(to)) throw new IllegalArgumentException("from must be before to");
+        if (Duration.between(from, to).dividedBy(bucket) >= maxBuckets) {
+            throw new IllegalArgumentException("Too many buckets, at most " + maxBuckets);
+        }
+    }
+
+    /**
+     * Write signs per bucket in [from, to) as JSON, archived sessions included; buckets without
+     * results are omitted. Buckets are aligned on {@code from}.
+     */
+    public void writeTimeseries(LocalDateTime from, LocalDateTime to, Duration bucket, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeStringField("bucket", bucket.toString());
+            json.writeArrayFieldStart("buckets");
+
+            readOnlyTx.executeWithoutResult(tx -> {
+                TreeMap<Long, Bucket> archived = archivedBuckets(from, to, bucket);
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(TIMESERIES_SQL);
+                    ps.setFetchSize(500);
+                    ps.setString(1, bucket.toMillis() + " milliseconds");
+                    ps.setTimestamp(2, Timestamp.valueOf(from));
+                    ps.setTimestamp(3, Timestamp.valueOf(from));
+                    ps.setTimestamp(4, Timestamp.valueOf(to));
+                    return ps;
+                }, rs -> {
+                    long index = Duration.between(from, rs.getTimestamp("bucket").toLocalDateTime()).dividedBy(bucket);
+                    // archived buckets before this one, then this one with its archived part
+                    while (!archived.isEmpty() && archived.firstKey() < index) {
+                        Map.Entry<Long, Bucket> earlier = archived.pollFirstEntry();
+                        write(json, from, bucket, earlier.getKey(), earlier.getValue());
+                    }
+                    Bucket merged = archived.containsKey(index) ? archived.remove(index) : new Bucket();
+                    merged.signs += rs.getLong("signs");
+                    merged.confidenceSum += rs.getDouble("confidence_sum");
+                    merged.sessions += rs.getLong("sessions");
+                    write(json, from, bucket, index, merged);
+                });
+                archived.forEach((index, rest) -> write(json, from, bucket, index, rest));
+            });
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    // Per-bucket sums of the results of sessions archived in [from, to), one session decoded at a time
+    private TreeMap<Long, Bucket> archivedBuckets(LocalDateTime from, LocalDateTime to, Duration bucket) {
+        TreeMap<Long, Bucket> buckets = new TreeMap<>();
+        try (Stream<ArchivedResults> archives = archiveRepo.streamAll(from, to)) {
+            for (ArchivedResults archive : (Iterable<ArchivedResults>) archives::iterator) {
+                for (DetectionResult r : ResultArchiveCodec.decode(archive.payload())) {
+                    LocalDateTime at = r.getDetectedAt();
+                    if (at == null || at.isBefore(from) || !at.isBefore(to)) continue;
+                    Bucket b = buckets.computeIfAbsent(Duration.between(from, at).dividedBy(bucket), i -> new Bucket());
+                    b.signs += r.getObservationCount();
+                    b.confidenceSum += r.getConfidenceTotal();
+                    // archives come in session order, so a session is counted once per bucket
+                    if (b.lastSession != archive.sessionId()) {
+                        b.lastSession = archive.sessionId();
+                        b.sessions++;
+                    }
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static void write(JsonGenerator json, LocalDateTime from, Duration bucket, long index, Bucket b) {
+        try {
+            json.writeStartObject();
+            json.writeStringField("start", from.plus(bucket.multipliedBy(index)).toString());
+            json.writeNumberField("signs", b.signs);
+            json.writeNumberField("averageConfidence", b.confidenceSum / b.signs);
+            json.writeNumberField("sessions", b.sessions);
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Bucket {
+        private long signs;
+        private double confidenceSum;
+        private long sessions;
+        private long lastSession = -1;
+    }
+}
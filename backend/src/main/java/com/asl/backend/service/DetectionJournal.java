@@ -0,0 +1,322 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.util.AslAlphabet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of detection events on local disk, so a crash does not lose what
+ * only this node's memory holds (open runs, buffered results, the active session list).
+ * Segments are memory-mapped files of {@code segment-records} fixed-size records named
+ * after their first sequence number. An append reserves its sequence number (and with it
+ * its slot) from one counter and writes the slot without locking; the page cache keeps
+ * written records through a JVM crash, and {@link #force} (run by the drainer) through
+ * an OS crash. {@link DetectionJournalDrainer} deletes segments once everything in them
+ * is stored, and replays the segments left by the previous process at startup.
+ * <pre>
+ * record (96 bytes, little-endian):
+ *   crc:u32 (CRC32C of bytes 4-95)  type:u8  letter:u8 (AslAlphabet index)  timestampLength:u8  pad:u8
+ *   seq:u64  sessionId:u64  userId:u64  at:u64 (epoch millis, UTC)  confidence:f64
+ *   upstreamTimestamp: 40 bytes UTF-8 (truncated)  reserved: 8 bytes
+ * </pre>
+ * A slot that is all zeros was never written; one with a bad CRC was torn by the crash.
+ */
+@Service
+@Slf4j
+public class DetectionJournal {
+
+    public static final int RECORD_SIZE = 96;
+
+    public static final byte SESSION_STARTED = 1;
+    public static final byte OBSERVATION = 2;
+    public static final byte SESSION_STOPPED = 3;
+
+    private static final int TIMESTAMP_OFFSET = 48;
+    private static final int TIMESTAMP_BYTES = 40;
+    private static final int NO_LETTER = 0xFF;
+    private static final String SUFFIX = ".journal";
+
+    @Value("${detection.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${detection.journal.dir:journal}")
+    private String dir;
+
+    @Value("${detection.journal.segment-records:65536}")
+    private int segmentRecords;
+
+    private Path directory;
+    private volatile boolean open;
+    private long firstSeq;
+    private final AtomicLong next = new AtomicLong();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment current;
+    // segments written by the previous process, until the drainer has replayed them
+    private final List<Path> recovered = new ArrayList<>();
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) return;
+        directory = Path.of(dir);
+        Files.createDirectories(directory);
+
+        // new sequence numbers start past every record on disk
+        long start = 1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                long base = baseOf(file);
+                if (base < 0) continue;
+                recovered.add(file);
+                start = Math.max(start, base + Files.size(file) / RECORD_SIZE);
+            }
+        }
+        recovered.sort(Comparator.comparingLong(DetectionJournal::baseOf));
+
+        firstSeq = start;
+        next.set(start);
+        current = segment(0);
+        open = true;
+        log.info("Detection journal in {}, {} segment(s) to recover", directory.toAbsolutePath(), recovered.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        force();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /** Sequence number the next append gets; every earlier one is reserved */
+    public long nextSeq() {
+        return next.get();
+    }
+
+    public long sessionStarted(DetectionSession session) {
+        return append(SESSION_STARTED, session, null, 0, null, LocalDateTime.now());
+    }
+
+    public long sessionStopped(DetectionSession session) {
+        return append(SESSION_STOPPED, session, null, 0, null, LocalDateTime.now());
+    }
+
+    /**
+     * Journal one accepted observation; returns its sequence number, or 0 when the journal is
+     * off or the letter is not an AslAlphabet class (such observations are not journaled).
+     */
+    public long observation(DetectionSession session, String letter, double confidence,
+                            String upstreamTimestamp, LocalDateTime at) {
+        return append(OBSERVATION, session, letter, confidence, upstreamTimestamp, at);
+    }
+
+    private long append(byte type, DetectionSession session, String letter, double confidence,
+                        String upstreamTimestamp, LocalDateTime at) {
+        if (!open) return 0;
+        int letterIndex = NO_LETTER;
+        if (letter != null) {
+            letterIndex = AslAlphabet.indexOf(letter);
+            if (letterIndex < 0) return 0;
+        }
+
+        Scratch s = scratch.get();
+        ByteBuffer record = s.record;
+        Arrays.fill(s.bytes, (byte) 0);
+        long seq = next.getAndIncrement();
+        record.putInt(0, 0)
+              .put(4, type)
+              .put(5, (byte) letterIndex)
+              .putLong(8, seq)
+              .putLong(16, session.getId())
+              .putLong(24, session.getUser() != null ? session.getUser().getId() : 0)
+              .putLong(32, at.toInstant(ZoneOffset.UTC).toEpochMilli())
+              .putDouble(40, confidence);
+        int length = 0;
+        if (upstreamTimestamp != null) {
+            byte[] text = upstreamTimestamp.getBytes(StandardCharsets.UTF_8);
+            length = Math.min(text.length, TIMESTAMP_BYTES);
+            record.put(TIMESTAMP_OFFSET, text, 0, length);
+        }
+        record.put(6, (byte) length);
+        s.crc.reset();
+        s.crc.update(s.bytes, 4, RECORD_SIZE - 4);
+        record.putInt(0, (int) s.crc.getValue());
+
+        try {
+            long slot = seq - firstSeq;
+            Segment segment = segment(slot / segmentRecords);
+            segment.buffer.put((int) (slot % segmentRecords) * RECORD_SIZE, s.bytes);
+        } catch (UncheckedIOException e) {
+            // the event itself goes on; it just is not crash-safe
+            log.error("Failed to journal detection event {}: {}", seq, e.getMessage());
+            return 0;
+        }
+        return seq;
+    }
+
+    /** Flush written records to the device */
+    public void force() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    /** Map the segment after the current one ahead of time, so no append waits for it */
+    public void preallocate() {
+        if (!open) return;
+        synchronized (segments) {
+            segments.computeIfAbsent(current.number + 1, this::create);
+        }
+    }
+
+    /** Delete segments whose records all precede the given sequence number; returns how many */
+    public int truncateBefore(long seq) {
+        int deleted = 0;
+        for (Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+            Segment segment = it.next();
+            long last = firstSeq + (segment.number + 1) * segmentRecords - 1;
+            if (last >= seq) break;
+            it.remove();
+            try {
+                Files.deleteIfExists(segment.path);
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    /** Valid records of the segments left by the previous process, in sequence order */
+    public List<Record> readRecovered() throws IOException {
+        List<Record> records = new ArrayList<>();
+        byte[] bytes = new byte[RECORD_SIZE];
+        CRC32C crc = new CRC32C();
+        for (Path file : recovered) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                int skipped = 0;
+                for (int offset = 0; offset + RECORD_SIZE <= data.capacity(); offset += RECORD_SIZE) {
+                    if (data.get(offset + 4) == 0) continue; // never written
+                    data.get(offset, bytes);
+                    crc.reset();
+                    crc.update(bytes, 4, RECORD_SIZE - 4);
+                    if ((int) crc.getValue() != data.getInt(offset)) {
+                        skipped++;
+                        continue;
+                    }
+                    records.add(decode(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)));
+                }
+                if (skipped > 0) log.warn("Skipped {} torn record(s) in journal segment {}", skipped, file);
+            }
+        }
+        records.sort(Comparator.comparingLong(Record::seq));
+        return records;
+    }
+
+    /** Delete the previous process's segments once they are replayed */
+    public void discardRecovered() throws IOException {
+        for (Path file : recovered) {
+            Files.deleteIfExists(file);
+        }
+        recovered.clear();
+    }
+
+    private static Record decode(ByteBuffer record) {
+        int letterIndex = record.get(5) & 0xFF;
+        int length = record.get(6) & 0xFF;
+        String timestamp = null;
+        if (length > 0) {
+            byte[] text = new byte[Math.min(length, TIMESTAMP_BYTES)];
+            record.get(TIMESTAMP_OFFSET, text);
+            timestamp = new String(text, StandardCharsets.UTF_8);
+        }
+        return new Record(
+                record.getLong(8),
+                record.get(4),
+                record.getLong(16),
+                record.getLong(24),
+                letterIndex < AslAlphabet.NUM_CLASSES ? AslAlphabet.CLASS_NAMES.get(letterIndex) : null,
+                record.getDouble(40),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getLong(32)), ZoneOffset.UTC),
+                timestamp);
+    }
+
+    // Segment n of this process, mapped on first use; only rolling over to a new segment locks
+    private Segment segment(long number) {
+        Segment segment = current;
+        if (segment != null && segment.number == number) return segment;
+        synchronized (segments) {
+            segment = segments.computeIfAbsent(number, this::create);
+            if (current == null || current.number < number) current = segment;
+            return segment;
+        }
+    }
+
+    private Segment create(long number) {
+        long base = firstSeq + number * segmentRecords;
+        Path path = directory.resolve(String.format("%020d%s", base, SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+            return new Segment(number, path, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long baseOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** One journaled event; letter is null for session start/stop records */
+    public record Record(long seq, byte type, long sessionId, long userId, String letter, double confidence,
+                         LocalDateTime at, String upstreamTimestamp) {
+    }
+
+    private record Segment(long number, Path path, MappedByteBuffer buffer) {
+    }
+
+    // per-thread record image, copied into the reserved slot in one put
+    private static final class Scratch {
+        private final byte[] bytes = new byte[RECORD_SIZE];
+        private final ByteBuffer record = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+    }
+}
@@ -0,0 +1,188 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the DetectionJournal short and brings its content back after a crash.
+ * <p>
+ * Results reach Postgres through the run encoder and the write-behind writer as before;
+ * every batch records how far into the journal the session's rows reach. The drain run
+ * takes the oldest journal position still only in memory (an open run, a buffered or an
+ * in-flight batch), syncs the journal and deletes the segments before it.
+ * <p>
+ * At startup the segments left by the previous process are replayed: per session, the
+ * observations past the position stored with its rows go through the encoder again (at
+ * their original time), on top of aggregates recomputed from the rows. A session that
+ * was journaling until less than {@code resume-window-ms} ago and not stopped is resumed
+ * on this node; any other is written out and closed at its last observation. Transcript
+ * edits not yet flushed when the process died are not recovered.
+ * Sessions still marked active that no node owns and that saw nothing for the resume
+ * window (e.g. from a node that died without a journal on this disk) are closed by the
+ * periodic orphan check.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DetectionJournalDrainer {
+
+    private final DetectionJournal journal;
+    private final DetectionRunEncoder runEncoder;
+    private final DetectionResultWriter resultWriter;
+    private final DetectionService detectionService;
+    private final DetectionSessionRepository sessionRepo;
+    private final DetectionResultRepository resultRepo;
+    private final SessionAggregateBackfill aggregateBackfill;
+    private final SessionRegistry sessionRegistry;
+    private final DetectionMetrics metrics;
+    private final ReadYourWrites readYourWrites;
+
+    /** Sync the journal to the device on every drain, not only on shutdown */
+    @Value("${detection.journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${detection.journal.resume-window-ms:120000}")
+    private long resumeWindowMs;
+
+    // records the journal has to keep as of the last drain
+    private final AtomicLong undrained = new AtomicLong();
+
+    @PostConstruct
+    public void registerMetrics() {
+        metrics.getRegistry().gauge("detection.journal.undrained", undrained);
+    }
+
+    @Scheduled(fixedDelayString = "${detection.journal.drain-interval-ms:1000}")
+    public void drain() {
+        if (!journal.isOpen()) return;
+
+        // read first: anything appended later is past it, anything earlier is found below
+        long next = journal.nextSeq();
+        long keepFrom = Math.min(next, Math.min(runEncoder.pendingFrom(), resultWriter.pendingFrom()));
+        undrained.set(next - keepFrom);
+
+        if (fsync) journal.force();
+        int deleted = journal.truncateBefore(keepFrom);
+        if (deleted > 0) log.debug("Deleted {} drained journal segment(s)", deleted);
+        journal.preallocate();
+    }
+
+    /** Replay what the previous process journaled but did not store */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        if (!journal.isOpen()) return;
+
+        Map<Long, List<DetectionJournal.Record>> bySession = new LinkedHashMap<>();
+        for (DetectionJournal.Record record : journal.readRecovered()) {
+            bySession.computeIfAbsent(record.sessionId(), id -> new ArrayList<>()).add(record);
+        }
+
+        int resumed = 0, closed = 0, failed = 0;
+        for (Map.Entry<Long, List<DetectionJournal.Record>> entry : bySession.entrySet()) {
+            try {
+                // what is read here is written back, so it must not come from a lagging replica
+                Boolean resume = readYourWrites.onPrimary(() -> recoverSession(entry.getKey(), entry.getValue()));
+                if (resume == null) continue;
+                if (resume) resumed++;
+                else closed++;
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Failed to recover detection session {} from the journal: {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        // a failed session is tried again at the next start; replaying the others again is a no-op
+        if (failed == 0) journal.discardRecovered();
+        if (!bySession.isEmpty()) {
+            log.info("Journal recovery: {} session(s) resumed, {} closed, {} failed", resumed, closed, failed);
+        }
+        closeOrphans();
+    }
+
+    /** Close active sessions that no node owns and that saw nothing for the resume window */
+    @Scheduled(initialDelayString = "${detection.journal.orphan-check-ms:300000}",
+               fixedDelayString = "${detection.journal.orphan-check-ms:300000}")
+    public void closeOrphans() {
+        readYourWrites.onPrimary(this::closeIdleUnownedSessions);
+    }
+
+    private void closeIdleUnownedSessions() {
+        LocalDateTime idleSince = LocalDateTime.now().minus(Duration.ofMillis(resumeWindowMs));
+        int closed = 0;
+        for (DetectionSession session : sessionRepo.findActive()) {
+            Long userId = session.getUser().getId();
+            DetectionSession owned = detectionService.getActiveSession(userId);
+            if (owned != null && owned.getId().equals(session.getId())) continue;
+            if (session.getId().equals(sessionRegistry.sessionOf(userId))) continue;
+
+            LocalDateTime lastActivity = session.getCreatedAt();
+            LocalDateTime lastObserved = resultRepo.findLastObservedAt(session.getId());
+            if (lastObserved != null && (lastActivity == null || lastObserved.isAfter(lastActivity))) {
+                lastActivity = lastObserved;
+            }
+            if (lastActivity == null || lastActivity.isAfter(idleSince)) continue;
+
+            try {
+                detectionService.closeRecovered(reloadWithStoredAggregates(session.getId()), lastActivity);
+                closed++;
+            } catch (RuntimeException e) {
+                log.error("Failed to close orphaned detection session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (closed > 0) log.info("Closed {} orphaned detection session(s)", closed);
+    }
+
+    // true = resumed, false = closed, null = nothing to do
+    private Boolean recoverSession(Long sessionId, List<DetectionJournal.Record> records) {
+        DetectionSession session = sessionRepo.findById(sessionId).orElse(null);
+        if (session == null || !"active".equals(session.getStatus())) return null;
+
+        Long userId = session.getUser().getId();
+        Long registered = sessionRegistry.sessionOf(userId);
+        DetectionJournal.Record last = records.get(records.size() - 1);
+        boolean stopped = records.stream().anyMatch(r -> r.type() == DetectionJournal.SESSION_STOPPED);
+        boolean resume = !stopped
+                && (registered == null || registered.equals(sessionId))
+                && last.at().isAfter(LocalDateTime.now().minus(Duration.ofMillis(resumeWindowMs)));
+
+        long stored = session.getJournalSeq() != null ? session.getJournalSeq() : 0;
+        session = reloadWithStoredAggregates(sessionId);
+        for (DetectionJournal.Record record : records) {
+            if (record.type() != DetectionJournal.OBSERVATION || record.seq() <= stored || record.letter() == null) {
+                continue;
+            }
+            runEncoder.replay(session, record.letter(), record.confidence(), record.upstreamTimestamp(), record.at());
+        }
+
+        if (resume) {
+            detectionService.resumeRecovered(session);
+        } else {
+            detectionService.closeRecovered(session, last.at());
+        }
+        return resume;
+    }
+
+    // The stored aggregates may count observations whose rows never made it; recompute them from the rows
+    private DetectionSession reloadWithStoredAggregates(Long sessionId) {
+        aggregateBackfill.backfillChunk(List.of(sessionId));
+        return sessionRepo.findById(sessionId).orElseThrow();
+    }
+}
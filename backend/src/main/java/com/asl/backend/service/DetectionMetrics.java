@@ -0,0 +1,96 @@
+package com.asl.backend.service;
+
+import com.asl.backend.util.AslAlphabet;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the detection pipeline, exported on /actuator/prometheus.
+ * Timers publish percentile histograms so p99s can be computed server-side
+ * (histogram_quantile) across instances.
+ *
+ * <ul>
+ *   <li>{@code inference.upstream.requests} - Python worker calls, by operation, worker and outcome</li>
+ *   <li>{@code detection.db.writes} - session and result writes, by operation</li>
+ *   <li>{@code detection.predictions} - accepted predictions, by letter</li>
+ *   <li>{@code detection.prediction.confidence} - confidence of accepted predictions</li>
+ * </ul>
+ */
+@Component
+public class DetectionMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter[] letterCounters = new Counter[AslAlphabet.NUM_CLASSES];
+    private final DistributionSummary confidence;
+
+    public DetectionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (int i = 0; i < letterCounters.length; i++) {
+            letterCounters[i] = Counter.builder("detection.predictions")
+                    .description("Accepted predictions per letter")
+                    .tag("letter", AslAlphabet.CLASS_NAMES.get(i))
+                    .register(registry);
+        }
+        this.confidence = DistributionSummary.builder("detection.prediction.confidence")
+                .description("Confidence of accepted predictions")
+                .serviceLevelObjectives(0.5, 0.6, 0.7, 0.8, 0.9, 0.95, 0.99)
+                .register(registry);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /** Count one accepted prediction */
+    public void prediction(String letter, double value) {
+        int index = AslAlphabet.indexOf(letter);
+        if (index >= 0) letterCounters[index].increment();
+        confidence.record(value);
+    }
+
+    /** Start timing an upstream call; finish with {@link #upstreamDone} */
+    public Timer.Sample startUpstream() {
+        return Timer.start(registry);
+    }
+
+    public void upstreamDone(Timer.Sample sample, String operation, String worker, String outcome) {
+        sample.stop(Timer.builder("inference.upstream.requests")
+                .description("Calls to the Python inference workers")
+                .tags("operation", operation, "worker", worker, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /** Time a database write */
+    public <T> T timeDb(String operation, Supplier<T> write) {
+        return dbTimer(operation).record(write);
+    }
+
+    public void timeDb(String operation, Runnable write) {
+        dbTimer(operation).record(write);
+    }
+
+    /** Gauge tracking the size of a live map */
+    public <M extends Map<?, ?>> M gaugeMapSize(String name, String description, M map) {
+        Gauge.builder(name, map, Map::size).description(description).register(registry);
+        return map;
+    }
+
+    private Timer dbTimer(String operation) {
+        return Timer.builder("detection.db.writes")
+                .description("Database writes of sessions and detection results")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /** Seconds since the JVM started */
+    public static long uptimeSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
@@ -0,0 +1,265 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind stage for detection results.
+ * Results are buffered per session and written with JDBC batch inserts once a
+ * buffer reaches the batch size or its oldest entry is older than the flush interval.
+ * Each batch also stores how far into the DetectionJournal the session's results reach.
+ */
+@Service
+@Slf4j
+public class DetectionResultWriter {
+
+    private final DetectionResultRepository resultRepo;
+    private final DetectionSessionRepository sessionRepo;
+    private final PlatformRollupService rollupService;
+    private final UserLetterStatsService letterStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DetectionMetrics metrics;
+
+    private final Map<Long, SessionBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "detection-result-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLag;
+
+    @Value("${detection.results.batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${detection.results.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    public DetectionResultWriter(DetectionResultRepository resultRepo, DetectionSessionRepository sessionRepo,
+                                 PlatformRollupService rollupService, UserLetterStatsService letterStatsService,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate, DetectionMetrics metrics) {
+        this.resultRepo = resultRepo;
+        this.sessionRepo = sessionRepo;
+        this.rollupService = rollupService;
+        this.letterStatsService = letterStatsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        MeterRegistry registry = metrics.getRegistry();
+        this.batchSize = DistributionSummary.builder("detection.results.flush.batch.size")
+                .description("Number of results written per flush")
+                .register(registry);
+        this.flushLag = Timer.builder("detection.results.flush.lag")
+                .description("Age of the oldest buffered result when its batch was flushed")
+                .register(registry);
+        registry.gauge("detection.results.pending", pending);
+    }
+
+    /** Buffer a result for its session; never blocks on the database */
+    public void enqueue(DetectionResult result) {
+        Long sessionId = result.getSession().getId();
+        SessionBuffer buffer = buffers.computeIfAbsent(sessionId, id -> new SessionBuffer());
+
+        int size;
+        synchronized (buffer) {
+            if (buffer.results.isEmpty()) buffer.oldestNanos = System.nanoTime();
+            buffer.results.add(result);
+            size = buffer.results.size();
+        }
+        pending.incrementAndGet();
+
+        if (size >= maxBatchSize) {
+            flusher.execute(() -> flushQuietly(sessionId));
+        }
+    }
+
+    /** Synchronously write everything buffered for a session, e.g. when it stops */
+    public void flush(Long sessionId) {
+        SessionBuffer buffer = buffers.get(sessionId);
+        if (buffer == null) return;
+
+        write(buffer);
+        synchronized (buffer) {
+            // keep the buffer registered if the write failed or new results arrived
+            if (buffer.results.isEmpty()) buffers.remove(sessionId, buffer);
+        }
+    }
+
+    /**
+     * Journal position of the oldest result not yet committed, buffered or in flight,
+     * or Long.MAX_VALUE when there is none.
+     */
+    public long pendingFrom() {
+        long from = Long.MAX_VALUE;
+        for (SessionBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                from = Math.min(from, buffer.inflightFrom);
+                for (DetectionResult result : buffer.results) {
+                    if (result.getJournalFirstSeq() > 0) {
+                        from = Math.min(from, result.getJournalFirstSeq());
+                        break; // results are in journal order
+                    }
+                }
+            }
+        }
+        return from;
+    }
+
+    /** Time-based flush of buffers whose oldest entry exceeded the interval */
+    @Scheduled(fixedDelayString = "${detection.results.flush-interval-ms:2000}")
+    public void flushExpired() {
+        long cutoff = System.nanoTime() - Duration.ofMillis(flushIntervalMs).toNanos();
+        buffers.forEach((sessionId, buffer) -> {
+            boolean expired;
+            synchronized (buffer) {
+                expired = !buffer.results.isEmpty() && buffer.oldestNanos - cutoff <= 0;
+            }
+            if (expired) flushQuietly(sessionId);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        buffers.keySet().forEach(this::flushQuietly);
+    }
+
+    /**
+     * Move the pooled id sequence past rows that were inserted while the
+     * table still used IDENTITY, so batched inserts never collide with them.
+     * Runs ahead of the journal recovery, which writes results.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void alignIdSequence() {
+        try {
+            jdbcTemplate.execute("SELECT setval('detection_result_seq', GREATEST(" +
+                    "(SELECT COALESCE(MAX(id), 0) FROM detection_result) + 50, " +
+                    "(SELECT last_value FROM detection_result_seq)))");
+        } catch (Exception e) {
+            log.warn("Could not align detection_result_seq: {}", e.getMessage());
+        }
+    }
+
+    private void flushQuietly(Long sessionId) {
+        try {
+            SessionBuffer buffer = buffers.get(sessionId);
+            if (buffer != null) write(buffer);
+        } catch (Exception e) {
+            log.error("Failed to flush detection results for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    // Writes of one session are serialized so flush() also waits for an in-flight batch
+    private void write(SessionBuffer buffer) {
+        synchronized (buffer.writeLock) {
+            writeBatch(buffer);
+        }
+    }
+
+    private void writeBatch(SessionBuffer buffer) {
+        List<DetectionResult> batch;
+        long oldestNanos;
+        synchronized (buffer) {
+            if (buffer.results.isEmpty()) return;
+            batch = buffer.results;
+            oldestNanos = buffer.oldestNanos;
+            buffer.results = new ArrayList<>();
+            buffer.inflightFrom = journalFrom(batch);
+        }
+
+        try {
+            // one transaction: batched INSERTs, platform rollup, user letter stats, session aggregates
+            // and journal position
+            DetectionSession session = batch.get(0).getSession();
+            long journalSeq = batch.stream().mapToLong(DetectionResult::getJournalLastSeq).max().orElse(0);
+            metrics.timeDb("results-batch", () -> transactionTemplate.executeWithoutResult(tx -> {
+                resultRepo.saveAll(batch);
+                rollupService.resultsWritten(batch);
+                letterStatsService.resultsWritten(session.getUser().getId(), batch);
+                saveAggregates(session);
+                if (journalSeq > 0) sessionRepo.updateJournalSeq(session.getId(), journalSeq);
+            }));
+        } catch (RuntimeException e) {
+            // put the batch back so the next flush retries it
+            synchronized (buffer) {
+                batch.addAll(buffer.results);
+                buffer.results = batch;
+                buffer.oldestNanos = oldestNanos;
+                buffer.inflightFrom = Long.MAX_VALUE;
+            }
+            throw e;
+        }
+        synchronized (buffer) {
+            buffer.inflightFrom = Long.MAX_VALUE;
+        }
+
+        pending.addAndGet(-batch.size());
+        batchSize.record(batch.size());
+        flushLag.record(System.nanoTime() - oldestNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Persist the session's running aggregates alongside its results */
+    public void saveAggregates(DetectionSession session) {
+        Long count;
+        Double sum, min, max;
+        Integer mask;
+        synchronized (session) {
+            count = session.getPredictionCount();
+            sum = session.getConfidenceSum();
+            min = session.getMinConfidence();
+            max = session.getMaxConfidence();
+            mask = session.getLetterMask();
+        }
+        if (count != null) {
+            metrics.timeDb("session-aggregates",
+                    () -> sessionRepo.updateAggregates(session.getId(), count, sum, min, max, mask));
+        }
+    }
+
+    private static long journalFrom(List<DetectionResult> results) {
+        long from = Long.MAX_VALUE;
+        for (DetectionResult result : results) {
+            if (result.getJournalFirstSeq() > 0) from = Math.min(from, result.getJournalFirstSeq());
+        }
+        return from;
+    }
+
+    private static class SessionBuffer {
+        private final Object writeLock = new Object();
+        private List<DetectionResult> results = new ArrayList<>();
+        private long oldestNanos;
+        // journal position of the batch being written, Long.MAX_VALUE when none
+        private long inflightFrom = Long.MAX_VALUE;
+    }
+}
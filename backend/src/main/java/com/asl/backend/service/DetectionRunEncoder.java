@@ -0,0 +1,156 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the per-poll prediction stream into stored rows.
+ * In "run-length" mode (default) consecutive observations of the same letter are
+ * folded into one open row kept in memory, which is handed to the writer only when
+ * the letter changes or the session stops. "raw" mode stores one row per observation.
+ * Repeated polls that return the same upstream letter and timestamp are not new
+ * observations and are skipped in both modes; the detection loop stamps every frame
+ * with its capture time in milliseconds, so distinct frames never share a timestamp. Every accepted observation also
+ * updates the session's running aggregates and is appended to the DetectionJournal.
+ */
+@Service
+@RequiredArgsConstructor
+public class DetectionRunEncoder {
+
+    private final DetectionResultWriter resultWriter;
+    private final DetectionJournal journal;
+
+    private final Map<Long, SessionState> states = new ConcurrentHashMap<>();
+
+    @Value("${detection.results.storage:run-length}")
+    private String storageMode;
+
+    /**
+     * Record one observation for a session.
+     * Returns false when it duplicates the previous upstream sample.
+     */
+    public boolean observe(DetectionSession session, String letter, double confidence, String upstreamTimestamp) {
+        return record(session, letter, confidence, upstreamTimestamp, LocalDateTime.now());
+    }
+
+    /** Record one observation made at a known time, e.g. a client frame's capture time */
+    public boolean observe(DetectionSession session, String letter, double confidence, String upstreamTimestamp,
+                           LocalDateTime at) {
+        return record(session, letter, confidence, upstreamTimestamp, at);
+    }
+
+    /** Re-apply an observation read back from the journal, at the time it was first made */
+    public void replay(DetectionSession session, String letter, double confidence, String upstreamTimestamp,
+                       LocalDateTime at) {
+        record(session, letter, confidence, upstreamTimestamp, at);
+    }
+
+    /** Hand the open run of a stopped session to the writer and forget its state */
+    public void close(Long sessionId) {
+        SessionState state = states.get(sessionId);
+        if (state == null) return;
+
+        synchronized (state) {
+            if (state.open != null) resultWriter.enqueue(state.open);
+            state.open = null;
+            states.remove(sessionId, state);
+        }
+    }
+
+    /**
+     * Journal position of the oldest observation still held in an open run, or
+     * Long.MAX_VALUE when there is none; the journal must be kept from there on.
+     */
+    public long pendingFrom() {
+        long from = Long.MAX_VALUE;
+        for (SessionState state : states.values()) {
+            synchronized (state) {
+                if (state.open != null && state.open.getJournalFirstSeq() > 0) {
+                    from = Math.min(from, state.open.getJournalFirstSeq());
+                }
+            }
+        }
+        return from;
+    }
+
+    private boolean record(DetectionSession session, String letter, double confidence, String upstreamTimestamp,
+                           LocalDateTime now) {
+        SessionState state = states.computeIfAbsent(session.getId(), id -> new SessionState());
+
+        synchronized (state) {
+            if (upstreamTimestamp != null
+                    && upstreamTimestamp.equals(state.lastTimestamp)
+                    && letter.equals(state.lastLetter)) {
+                return false;
+            }
+            state.lastLetter = letter;
+            state.lastTimestamp = upstreamTimestamp;
+            long seq = journal.observation(session, letter, confidence, upstreamTimestamp, now);
+            session.recordObservation(letter, confidence);
+
+            DetectionResult closed = null;
+            if (!"raw".equals(storageMode) && state.open != null && Objects.equals(state.open.getLetter(), letter)) {
+                extend(state.open, confidence, now, seq);
+            } else {
+                closed = state.open;
+                state.open = newRun(session, letter, confidence, upstreamTimestamp, now, seq);
+                if ("raw".equals(storageMode)) {
+                    closed = state.open;
+                    state.open = null;
+                }
+            }
+
+            // handed over under the lock, so pendingFrom() always finds a run in the encoder or the writer
+            if (closed != null) resultWriter.enqueue(closed);
+        }
+        return true;
+    }
+
+    private static DetectionResult newRun(DetectionSession session, String letter, double confidence,
+                                          String upstreamTimestamp, LocalDateTime now, long seq) {
+        DetectionResult run = new DetectionResult();
+        run.setSession(session);
+        run.setLetter(letter);
+        run.setConfidence(confidence);
+        run.setDetectedAt(now);
+        run.setUpstreamTimestamp(upstreamTimestamp);
+        run.setStartedAt(now);
+        run.setEndedAt(now);
+        run.setObservations(1);
+        run.setConfidenceSum(confidence);
+        run.setMinConfidence(confidence);
+        run.setMaxConfidence(confidence);
+        run.setJournalFirstSeq(seq);
+        run.setJournalLastSeq(seq);
+        return run;
+    }
+
+    private static void extend(DetectionResult run, double confidence, LocalDateTime now, long seq) {
+        int observations = run.getObservations() + 1;
+        double sum = run.getConfidenceSum() + confidence;
+        run.setObservations(observations);
+        run.setConfidenceSum(sum);
+        run.setConfidence(sum / observations);
+        run.setMinConfidence(Math.min(run.getMinConfidence(), confidence));
+        run.setMaxConfidence(Math.max(run.getMaxConfidence(), confidence));
+        run.setEndedAt(now);
+        if (seq > 0) {
+            if (run.getJournalFirstSeq() == 0) run.setJournalFirstSeq(seq);
+            run.setJournalLastSeq(seq);
+        }
+    }
+
+    private static class SessionState {
+        private DetectionResult open;
+        private String lastLetter;
+        private String lastTimestamp;
+    }
+}
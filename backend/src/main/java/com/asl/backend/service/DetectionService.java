@@ -1,146 +1,377 @@
 package com.asl.backend.service;
 
+import com.asl.backend.dto.DetectionSessionDto;
 import com.asl.backend.entity.DetectionResult;
 import com.asl.backend.entity.DetectionSession;
 import com.asl.backend.entity.User;
+import com.asl.backend.inference.LandmarkClassifier;
 import com.asl.backend.repository.DetectionResultRepository;
 import com.asl.backend.repository.DetectionSessionRepository;
 import com.asl.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RequiredArgsConstructor
 @Service
+@Slf4j
 public class DetectionService {
 
+    // Upstream timestamp of client frames, in the format of frame_timestamp() in aslmodel/src/detect_sign.py
+    private static final DateTimeFormatter FRAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
     private final DetectionSessionRepository sessionRepo;
     private final DetectionResultRepository resultRepo;
     private final UserRepository userRepo; // Inject UserRepository
     private final PythonIntegrationService pythonService;
+    private final UpstreamResultPoller resultPoller;
+    private final PredictionStreamService streamService;
+    private final DetectionResultWriter resultWriter;
+    private final DetectionRunEncoder runEncoder;
+    private final DetectionTranscriber transcriber;
+    private final PlatformRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final LandmarkClassifier landmarkClassifier;
+    private final DetectionMetrics metrics;
+    private final SessionRegistry sessionRegistry;
+    private final DetectionJournal journal;
+
+    // Same cut-off as MIN_CONFIDENCE in aslmodel/src/config.py
+    @Value("${inference.min-confidence:0.7}")
+    private double minConfidence;
 
+    /** How long a stop waits for the node owning the session to close it */
+    @Value("${detection.registry.stop-wait-ms:3000}")
+    private long stopWaitMs;
+
+    // Sessions owned by this node; the registry knows about those of every node
     private final Map<Long, DetectionSession> activeSessions = new ConcurrentHashMap<>();
-    private final Map<Long, String> latestPredictions = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicLong> lastLandmarkSeq = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pushedVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        metrics.gaugeMapSize("detection.sessions.active", "Detection sessions running on this node", activeSessions);
+        sessionRegistry.onStopRequested(this::stopDetection);
+    }
 
     /** Start a detection session */
     public DetectionSession startDetection(User user) {
-        DetectionSession session = new DetectionSession();
-        session.setUser(user);
-        session.setCreatedAt(LocalDateTime.now());
-        session.setStatus("active");
-        session.setResults(new ArrayList<>());
-        session = sessionRepo.save(session);
-
-        activeSessions.put(user.getId(), session);
-        latestPredictions.put(user.getId(), "");
-
-        try {
-            String status = pythonService.startDetection();
-            System.out.println("Python ASL detection status: " + status);
-        } catch (Exception e) {
-            System.err.println("Error starting Python detection: " + e.getMessage());
+        // A session left running on another node is closed there first
+        if (!activeSessions.containsKey(user.getId()) && sessionRegistry.sessionOf(user.getId()) != null) {
+            sessionRegistry.requestStop(user.getId());
+        }
+
+        DetectionSession newSession = new DetectionSession();
+        newSession.setUser(user);
+        newSession.setCreatedAt(LocalDateTime.now());
+        newSession.setStatus("active");
+        newSession.setResults(new ArrayList<>());
+        newSession.initAggregates();
+
+        // Session row and rollup counter commit together
+        DetectionSession session = transactionTemplate.execute(tx -> {
+            DetectionSession saved = metrics.timeDb("session-save", () -> sessionRepo.save(newSession));
+            rollupService.sessionStarted();
+            return saved;
+        });
+
+        // A second start replaces the user's session here: the old one is closed, keeping its worker
+        DetectionSession previous = activeSessions.put(user.getId(), session);
+        if (previous != null) {
+            log.info("Detection session {} of user {} replaced by {}", previous.getId(), user.getId(), session.getId());
+            close(user.getId(), previous);
         }
+        sessionRegistry.register(user.getId(), session.getId());
+        journal.sessionStarted(session);
+
+        // Does not wait for Python; failures are logged by the client
+        pythonService.startDetection(user.getId())
+                .thenAccept(status -> log.info("Python ASL detection status for user {}: {}", user.getId(), status));
 
         return session;
     }
 
-    /** Stop a detection session */
+    /**
+     * Stop a detection session. A session owned by another node is stopped there,
+     * and the summary is read back once that node has closed the session row.
+     */
     public Map<String, Object> stopDetection(Long userId) {
         DetectionSession session = activeSessions.remove(userId);
+
+        if (session == null) {
+            Long remoteSessionId = sessionRegistry.requestStop(userId);
+            if (remoteSessionId != null) return awaitRemoteStop(remoteSessionId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "no active session");
+            return response;
+        }
+
+        Map<String, Object> response = close(userId, session);
+        pythonService.stopDetection(userId)
+                .thenAccept(status -> log.info("Python ASL detection stopped for user {}: {}", userId, status));
+        return response;
+    }
+
+    /** Close a session taken out of activeSessions and return its summary; the user's worker is left alone */
+    private Map<String, Object> close(Long userId, DetectionSession session) {
+        session.setEndedAt(LocalDateTime.now());
+        session.setStatus("stopped");
+
+        // Close the open run, flush buffered results, then close the session row
+        runEncoder.close(session.getId());
+        transcriber.close(session.getId());
+        resultWriter.flush(session.getId());
+        resultWriter.saveAggregates(session);
+        metrics.timeDb("session-end",
+                () -> sessionRepo.markEnded(session.getId(), session.getStatus(), session.getEndedAt()));
+        journal.sessionStopped(session);
+        sessionRegistry.unregister(userId);
+        lastLandmarkSeq.remove(session.getId());
+        pushedVersions.remove(userId);
+
+        // Summary straight from the running aggregates, plus the written transcript
         Map<String, Object> response = new HashMap<>();
+        session.setTranscript(sessionRepo.findTranscript(session.getId()));
+        putSummary(response, session);
 
-        if (session != null) {
-            session.setEndedAt(LocalDateTime.now());
-            session.setStatus("stopped");
-            sessionRepo.save(session);
-            latestPredictions.remove(userId);
+        // Final event for live stream subscribers, then close their connections
+        streamService.close(userId, response);
+        return response;
+    }
 
+    private Map<String, Object> awaitRemoteStop(Long sessionId) {
+        Map<String, Object> response = new HashMap<>();
+        long deadline = System.currentTimeMillis() + stopWaitMs;
+        while (System.currentTimeMillis() < deadline) {
+            DetectionSession session = sessionRepo.findById(sessionId).orElse(null);
+            if (session == null) break;
+            if (!"active".equals(session.getStatus())) {
+                putSummary(response, session);
+                return response;
+            }
             try {
-                String status = pythonService.stopDetection();
-                System.out.println("Python ASL detection stopped: " + status);
-            } catch (Exception e) {
-                System.err.println("Error stopping Python detection: " + e.getMessage());
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
-
-            List<DetectionResult> results = session.getResults() != null ? session.getResults() : new ArrayList<>();
-            long duration = Duration.between(session.getCreatedAt(), session.getEndedAt()).toSeconds();
-            int totalPredictions = results.size();
-            double avgConfidence = results.stream()
-                    .mapToDouble(DetectionResult::getConfidence)
-                    .average()
-                    .orElse(0.0);
-            long uniqueSigns = results.stream()
-                    .map(DetectionResult::getLetter)
-                    .distinct()
-                    .count();
-
-            response.put("sessionId", session.getId());
-            response.put("status", session.getStatus());
-            response.put("duration", duration);
-            response.put("totalPredictions", totalPredictions);
-            response.put("averageConfidence", avgConfidence);
-            response.put("uniqueSigns", uniqueSigns);
-        } else {
-            response.put("status", "no active session");
         }
 
+        // The owner is still closing the session; its summary arrives on the live stream
+        response.put("sessionId", sessionId);
+        response.put("status", "stopping");
         return response;
     }
 
-    /** Save a detection result */
-    public DetectionResult saveDetectionResult(DetectionSession session, String letter, double confidence) {
-        if (session.getResults() == null) session.setResults(new ArrayList<>());
+    private static void putSummary(Map<String, Object> response, DetectionSession session) {
+        response.put("sessionId", session.getId());
+        response.put("status", session.getStatus());
+        response.put("duration", session.getDurationSeconds());
+        response.put("totalPredictions", (int) session.getTotalPredictions());
+        response.put("averageConfidence", session.getAverageConfidence());
+        response.put("uniqueSigns", (long) session.getUniqueSigns());
+        response.put("transcript", session.getTranscript() != null ? session.getTranscript() : "");
+    }
 
-        DetectionResult result = new DetectionResult();
-        result.setSession(session);
-        result.setLetter(letter);
-        result.setConfidence(confidence);
-        result = resultRepo.save(result);
+    /**
+     * Save a detection result. Non-predictions (no hand / upstream error) are not stored, though
+     * samples without a confident sign end the transcriber's run; everything else is run-length
+     * encoded and written in batches.
+     */
+    public void saveDetectionResult(DetectionSession session, String letter, double confidence, String upstreamTimestamp) {
+        saveDetectionResult(session, letter, confidence, upstreamTimestamp, LocalDateTime.now());
+    }
 
-        session.getResults().add(result);
-        sessionRepo.save(session);
+    /** Save a detection result observed at the given time */
+    public void saveDetectionResult(DetectionSession session, String letter, double confidence, String upstreamTimestamp,
+                                    LocalDateTime detectedAt) {
+        if (letter == null) transcriber.gap(session.getId(), upstreamTimestamp);
+        if (!isPrediction(letter)) return;
 
-        latestPredictions.put(session.getUser().getId(), letter);
-        return result;
+        if (runEncoder.observe(session, letter, confidence, upstreamTimestamp, detectedAt)) {
+            metrics.prediction(letter, confidence);
+            transcriber.observe(session.getId(), letter, confidence);
+        }
+        sessionRegistry.updateLatestPrediction(session.getUser().getId(), letter);
     }
 
-    /** Get latest prediction for a user */
-    public Map<String, Object> getLatestPrediction(Long userId) {
-        PythonIntegrationService.PythonResult result;
-        try {
-            result = pythonService.getLatestResult();
-        } catch (Exception e) {
-            System.err.println("Error fetching latest Python result: " + e.getMessage());
-            return Map.of("prediction", null, "confidence", 0.0);
+    /**
+     * Get latest prediction for a user from the shared upstream snapshot.
+     * Completes immediately unless this is the first read of the user's worker.
+     */
+    public CompletableFuture<Map<String, Object>> getLatestPrediction(Long userId) {
+        return resultPoller.latest(userId).thenApply(result -> {
+            if (result == null) return prediction(null, 0.0);
+
+            String letter = result.letter();
+            double confidence = result.confidence();
+
+            DetectionSession session = activeSessions.get(userId);
+            if (session != null) {
+                saveDetectionResult(session, letter, confidence, result.timestamp());
+            }
+
+            streamService.publish(userId, letter, confidence);
+            return prediction(letter, confidence);
+        });
+    }
+
+    /**
+     * Attach one client-sent landmark frame, captured at {@code capturedAt} (epoch millis), to a
+     * session; the capture time becomes the result's detectedAt and upstream timestamp, capped
+     * at the server's clock. Returns null when the frame's sequence number is not newer than the
+     * last one seen.
+     */
+    public LandmarkClassifier.Prediction ingestLandmarkFrame(Long userId, DetectionSession session, long seq,
+                                                             long capturedAt, float[] landmarks) {
+        AtomicLong last = lastLandmarkSeq.computeIfAbsent(session.getId(), id -> new AtomicLong(-1));
+        long previous;
+        do {
+            previous = last.get();
+            if (seq <= previous) return null;
+        } while (!last.compareAndSet(previous, seq));
+
+        long now = System.currentTimeMillis();
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(capturedAt > 0 ? Math.min(capturedAt, now) : now),
+                ZoneId.systemDefault());
+        return classifyAndRecord(userId, session, landmarks, at);
+    }
+
+    /** Take over a session rebuilt from the journal after a crash; its observations are already replayed */
+    public void resumeRecovered(DetectionSession session) {
+        Long userId = session.getUser().getId();
+        activeSessions.put(userId, session);
+        sessionRegistry.register(userId, session.getId());
+    }
+
+    /**
+     * Close a session left active by a crash or a node that is gone: store the runs replayed
+     * from the journal and mark it stopped at its last observation.
+     */
+    public void closeRecovered(DetectionSession session, LocalDateTime endedAt) {
+        session.setEndedAt(endedAt);
+        session.setStatus("stopped");
+        runEncoder.close(session.getId());
+        resultWriter.flush(session.getId());
+        resultWriter.saveAggregates(session);
+        metrics.timeDb("session-end",
+                () -> sessionRepo.markEnded(session.getId(), session.getStatus(), session.getEndedAt()));
+        journal.sessionStopped(session);
+    }
+
+    /** Active session of a user, or null */
+    public DetectionSession getActiveSession(Long userId) {
+        return activeSessions.get(userId);
+    }
+
+    private LandmarkClassifier.Prediction classifyAndRecord(Long userId, DetectionSession session, float[] landmarks,
+                                                            LocalDateTime capturedAt) {
+        if (!landmarkClassifier.isAvailable()) {
+            throw new IllegalStateException("In-JVM inference is not configured");
         }
 
-        if (result == null) {
-            return Map.of("prediction", null, "confidence", 0.0);
+        LandmarkClassifier.Prediction p = landmarkClassifier.classify(landmarks);
+        String letter = p.confidence() >= minConfidence ? p.letter() : null;
+
+        if (session != null) {
+            saveDetectionResult(session, letter, p.confidence(), capturedAt.format(FRAME_TIMESTAMP), capturedAt);
         }
 
-        String letter = result.letter();
-        double confidence = result.confidence();
+        streamService.publish(userId, letter, p.confidence());
+        return letter != null ? p : new LandmarkClassifier.Prediction(null, p.confidence());
+    }
+
+    /**
+     * Record and push loop for the sessions owned by this node.
+     * Reads the shared upstream snapshots (no Python call of its own) and only handles
+     * users whose worker snapshot has a version newer than the one last handled for them.
+     * Covers every owned session, not only streamed ones, since polls for the user may
+     * be served by another node.
+     */
+    @Scheduled(fixedDelayString = "${detection.stream.poll-interval-ms:250}", scheduler = "detectionScheduler")
+    public void pushLatestPredictions() {
+        for (Long userId : activeSessions.keySet()) {
+            resultPoller.snapshotFor(userId).thenAccept(snapshot -> {
+                if (snapshot == null) return;
+                Long pushed = pushedVersions.put(userId, snapshot.version());
+                if (pushed != null && pushed == snapshot.version()) return;
 
-        if (activeSessions.containsKey(userId)) {
-            saveDetectionResult(activeSessions.get(userId), letter, confidence);
+                PythonIntegrationService.PythonResult result = snapshot.result();
+                DetectionSession session = activeSessions.get(userId);
+                if (session != null) {
+                    saveDetectionResult(session, result.letter(), result.confidence(), result.timestamp());
+                    streamService.publish(userId, result.letter(), result.confidence());
+                }
+            });
         }
+    }
+
+    // "Uncertain" is the placeholder for upstream errors, null means no confident sign
+    private static boolean isPrediction(String letter) {
+        return letter != null && !"Uncertain".equals(letter);
+    }
+
+    // Map.of rejects null values, and the prediction is null when nothing was detected
+    private static Map<String, Object> prediction(String letter, double confidence) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("prediction", letter);
+        body.put("confidence", confidence);
+        return body;
+    }
+
+    /**
+     * Keyset page of a user's session history, newest first.
+     * Pass a null/blank cursor for the first page; every page costs the same.
+     */
+    @Transactional(readOnly = true)
+    public List<DetectionSessionDto> getSessionHistoryPage(Long userId, String cursor, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        if (cursor == null || cursor.isBlank()) {
+            return sessionRepo.findHistory(userId, pageRequest);
+        }
+
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 2) throw new IllegalArgumentException("Invalid cursor");
+        return sessionRepo.findHistoryAfter(userId, LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), pageRequest);
+    }
+
+    /** Opaque cursor pointing just after the given history row */
+    public static String encodeCursor(DetectionSessionDto last) {
+        String raw = last.getStartTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-        return Map.of("prediction", letter, "confidence", confidence);
+    /** Offset page of a user's session history (compatibility mode), paged in the database */
+    public List<DetectionSessionDto> getSessionHistoryByOffset(Long userId, int page, int limit) {
+        return sessionRepo.findHistory(userId, PageRequest.of(Math.max(page - 1, 0), limit));
     }
 
-    /** Fetch all sessions for a user */
-    public List<DetectionSession> getSessionsByUserId(Long userId) {
-        // Use correct repository method
-        return sessionRepo.findByUser_IdOrderByCreatedAtDesc(userId);
+    public long countSessions(Long userId) {
+        return sessionRepo.countByUser_Id(userId);
     }
 
-    /** Fetch all sessions globally for dashboard */
-    public List<DetectionSession> getAllSessions() {
-        return sessionRepo.findAll();
+    /** Platform-wide totals for the dashboard, read from the rollup */
+    public PlatformRollupService.PlatformTotals getPlatformTotals() {
+        return rollupService.getTotals();
     }
 
     /** ✅ Get total number of registered users */
@@ -148,8 +379,8 @@ public class DetectionService {
         return (int) userRepo.count();
     }
 
-    /** Optionally, get active user count for dashboard */
+    /** Users with a running session, on all nodes */
     public int getActiveUserCount() {
-        return activeSessions.size();
+        return (int) sessionRegistry.activeSessionCount();
     }
 }
@@ -0,0 +1,188 @@
+package com.asl.backend.service;
+
+import com.asl.backend.repository.DetectionSessionRepository;
+import com.asl.backend.util.AslAlphabet;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a session's fingerspelled letters into text.
+ * The last {@code stability} observations of a session are kept in a ring buffer, enough to
+ * cover {@code hold-ms} at the rate new upstream samples arrive (one per poll interval); when
+ * they all name the same class at or above {@code min-confidence}, that class is committed
+ * once: a letter is appended, {@code space} appends a blank, {@code del} removes the last
+ * character and {@code nothing} only ends the run, so a letter can be signed twice in a row.
+ * A window without any confident class (frames without a hand, fed as {@link #gap}s, or
+ * below min-confidence) ends the run as well, so lowering the hand between two Ls does too.
+ * Edits are appended to the session's transcript column in the database by a periodic
+ * flush, so memory per session is the window plus the edits since the last flush.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DetectionTranscriber {
+
+    private static final int SPACE = AslAlphabet.indexOf("space");
+    private static final int DEL = AslAlphabet.indexOf("del");
+    private static final int NOTHING = AslAlphabet.indexOf("nothing");
+
+    private final DetectionSessionRepository sessionRepo;
+    private final DetectionMetrics metrics;
+
+    /** How long a sign must be held to be committed */
+    @Value("${detection.transcript.hold-ms:500}")
+    private long holdMs;
+
+    /** Time between new upstream samples, i.e. between observations of a session */
+    @Value("${python.poll.interval-ms:250}")
+    private long sampleIntervalMs;
+
+    /** Observations in a row needed to commit a class; at least 2, so a single stray frame never commits */
+    private int stability;
+
+    @Value("${detection.transcript.min-confidence:0.8}")
+    private double minConfidence;
+
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        stability = (int) Math.max(2, Math.round((double) holdMs / Math.max(1, sampleIntervalMs)));
+    }
+
+    /** Feed one observation; returns true when it committed an edit */
+    public boolean observe(Long sessionId, String letter, double confidence) {
+        State state = states.computeIfAbsent(sessionId, id -> new State(stability));
+        int index = confidence >= minConfidence ? AslAlphabet.indexOf(letter) : -1;
+
+        synchronized (state) {
+            state.window[state.next] = index;
+            state.next = (state.next + 1) % stability;
+            if (state.filled < stability) state.filled++;
+
+            if (index < 0) {
+                if (state.filled == stability && noClass(state.window)) state.committed = -1;
+                return false;
+            }
+            if (index == state.committed || state.filled < stability) return false;
+            for (int slot : state.window) {
+                if (slot != index) return false;
+            }
+
+            state.committed = index;
+            if (index == NOTHING) return false;
+            if (index == DEL) {
+                if (!state.appended.isEmpty()) {
+                    state.appended.setLength(state.appended.length() - 1);
+                } else {
+                    state.deleted++;
+                }
+            } else {
+                state.appended.append(index == SPACE ? " " : AslAlphabet.CLASS_NAMES.get(index));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Feed an upstream sample without a prediction (no hand, or nothing confident); samples
+     * read again with the same timestamp count once. Null timestamps always count.
+     */
+    public void gap(Long sessionId, String sampleTimestamp) {
+        State state = states.computeIfAbsent(sessionId, id -> new State(stability));
+        synchronized (state) {
+            if (sampleTimestamp != null && sampleTimestamp.equals(state.lastGap)) return;
+            state.lastGap = sampleTimestamp;
+        }
+        observe(sessionId, null, 0.0);
+    }
+
+    private static boolean noClass(int[] window) {
+        for (int slot : window) {
+            if (slot >= 0) return false;
+        }
+        return true;
+    }
+
+    /** Write pending edits of a stopped session and forget it */
+    public void close(Long sessionId) {
+        State state = states.remove(sessionId);
+        if (state != null) write(sessionId, state);
+    }
+
+    /** Append the edits of every session to its transcript column */
+    @Scheduled(fixedDelayString = "${detection.transcript.flush-interval-ms:1000}")
+    public void flush() {
+        states.forEach((sessionId, state) -> {
+            try {
+                write(sessionId, state);
+            } catch (RuntimeException e) {
+                log.error("Failed to write transcript of session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    private void write(Long sessionId, State state) {
+        // serialized per session; edits made during the write stay pending for the next one
+        synchronized (state.writeLock) {
+            int deleted;
+            String appended;
+            synchronized (state) {
+                if (state.deleted == 0 && state.appended.isEmpty()) return;
+                deleted = state.deleted;
+                appended = state.appended.toString();
+                state.deleted = 0;
+                state.appended.setLength(0);
+            }
+
+            try {
+                metrics.timeDb("transcript-append", () -> sessionRepo.appendTranscript(sessionId, deleted, appended));
+            } catch (RuntimeException e) {
+                synchronized (state) {
+                    state.restore(deleted, appended);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class State {
+        private final Object writeLock = new Object();
+        private final int[] window;
+        private int next;
+        private int filled;
+        private int committed = -1;
+        private String lastGap;
+        // edits since the last write: drop `deleted` characters, then append `appended`
+        private int deleted;
+        private final StringBuilder appended = new StringBuilder();
+
+        private State(int stability) {
+            this.window = new int[stability];
+        }
+
+        // Put back edits whose write failed, ahead of the ones made since
+        private void restore(int failedDeleted, String failedAppended) {
+            String newer = appended.toString();
+            int newerDeleted = deleted;
+            appended.setLength(0);
+            appended.append(failedAppended);
+            deleted = failedDeleted;
+            for (int i = 0; i < newerDeleted; i++) {
+                if (appended.isEmpty()) {
+                    deleted++;
+                } else {
+                    appended.setLength(appended.length() - 1);
+                }
+            }
+            appended.append(newer);
+        }
+    }
+}
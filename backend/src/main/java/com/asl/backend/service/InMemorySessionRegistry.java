@@ -0,0 +1,81 @@
+package com.asl.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/** Single-instance registry: every session is owned by this node (default) */
+@Service
+@ConditionalOnProperty(name = "detection.registry", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionRegistry implements SessionRegistry {
+
+    private final Map<Long, Long> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, String> latestPredictions = new ConcurrentHashMap<>();
+    private final Set<String> loggedIn = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public String nodeId() {
+        return "local";
+    }
+
+    @Override
+    public void register(Long userId, Long sessionId) {
+        sessions.put(userId, sessionId);
+        latestPredictions.put(userId, "");
+    }
+
+    @Override
+    public Long sessionOf(Long userId) {
+        return sessions.get(userId);
+    }
+
+    @Override
+    public Long unregister(Long userId) {
+        latestPredictions.remove(userId);
+        return sessions.remove(userId);
+    }
+
+    @Override
+    public Long requestStop(Long userId) {
+        return null;
+    }
+
+    @Override
+    public void onStopRequested(Consumer<Long> handler) {
+        // no other nodes
+    }
+
+    @Override
+    public void updateLatestPrediction(Long userId, String letter) {
+        if (sessions.containsKey(userId)) latestPredictions.put(userId, letter);
+    }
+
+    @Override
+    public String latestPrediction(Long userId) {
+        return latestPredictions.get(userId);
+    }
+
+    @Override
+    public long activeSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void userLoggedIn(String email) {
+        loggedIn.add(email);
+    }
+
+    @Override
+    public void userLoggedOut(String email) {
+        loggedIn.remove(email);
+    }
+
+    @Override
+    public long loggedInUserCount() {
+        return loggedIn.size();
+    }
+}
@@ -0,0 +1,225 @@
+package com.asl.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of Python inference workers (aslmodel/api/app.py instances).
+ * Each worker runs one detection loop, so every user with an active session is
+ * pinned to one worker. Placement walks a consistent-hash ring from the user's
+ * hash and takes the first worker below the load bound (average load x load-factor),
+ * falling back to the least-loaded worker. Workers are probed on /health; after
+ * {@code evict-after} failed probes they leave the ring and their users are moved
+ * on their next call, and a successful probe re-admits them.
+ */
+@Service
+@Slf4j
+public class InferenceWorkerPool {
+
+    private static final int VIRTUAL_NODES = 64;
+
+    @Value("${python.workers.urls:${python.api.url:http://localhost:8000}}")
+    private String workerUrls;
+
+    @Value("${python.workers.load-factor:1.25}")
+    private double loadFactor;
+
+    @Value("${python.workers.evict-after:2}")
+    private int evictAfter;
+
+    @Value("${python.workers.health-timeout-ms:1000}")
+    private int healthTimeoutMs;
+
+    private List<Worker> workers = List.of();
+    private final Map<Long, Worker> assignments = new ConcurrentHashMap<>();
+    private volatile NavigableMap<Long, Worker> ring = new TreeMap<>();
+    private RestTemplate probeClient;
+
+    // probe rounds, and rounds after which at least one worker was healthy
+    private final AtomicLong probeRounds = new AtomicLong();
+    private final AtomicLong availableRounds = new AtomicLong();
+
+    /** Where a user's calls go; {@code reassigned} means their previous worker was evicted */
+    public record Placement(Worker worker, boolean reassigned) {}
+
+    public static final class Worker {
+        private final String url;
+        private final AtomicInteger sessions = new AtomicInteger();
+        private volatile boolean healthy = true;
+        private int failedProbes;
+
+        Worker(String url) {
+            this.url = url;
+        }
+
+        public String getUrl() { return url; }
+        public int getSessions() { return sessions.get(); }
+        public boolean isHealthy() { return healthy; }
+    }
+
+    @PostConstruct
+    public void init() {
+        List<Worker> configured = new ArrayList<>();
+        for (String url : workerUrls.split(",")) {
+            String trimmed = url.trim();
+            if (trimmed.endsWith("/")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+            if (!trimmed.isEmpty()) configured.add(new Worker(trimmed));
+        }
+        if (configured.isEmpty()) throw new IllegalStateException("No Python inference workers configured");
+        workers = List.copyOf(configured);
+
+        var factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(healthTimeoutMs);
+        factory.setReadTimeout(healthTimeoutMs);
+        probeClient = new RestTemplate(factory);
+
+        rebuildRing();
+        log.info("Python inference pool: {}", workers.stream().map(Worker::getUrl).toList());
+    }
+
+    /**
+     * Sticky worker for a user with an active session, placing them if they have none
+     * or their worker was evicted. Null when no worker is healthy.
+     */
+    public synchronized Placement place(Long userId) {
+        Worker current = assignments.get(userId);
+        if (current != null && current.healthy) return new Placement(current, false);
+
+        Worker chosen = choose(userId);
+        if (chosen == null) return null;
+
+        if (current != null) current.sessions.decrementAndGet();
+        chosen.sessions.incrementAndGet();
+        assignments.put(userId, chosen);
+        return new Placement(chosen, current != null);
+    }
+
+    /** Worker a user is pinned to, or null */
+    public Worker assigned(Long userId) {
+        return assignments.get(userId);
+    }
+
+    /** Worker that would serve a user without pinning them (ring owner), or null */
+    public Worker peek(Long userId) {
+        Worker assigned = assignments.get(userId);
+        if (assigned != null && assigned.healthy) return assigned;
+        return ringOwner(hash("user:" + userId));
+    }
+
+    /**
+     * Unpin a user when their session ends; returns the sessions left on their worker
+     * (0 when the user was not pinned), as the worker's detection loop serves all of them.
+     */
+    public synchronized int release(Long userId) {
+        Worker worker = assignments.remove(userId);
+        return worker != null ? worker.sessions.decrementAndGet() : 0;
+    }
+
+    public List<Worker> getWorkers() {
+        return workers;
+    }
+
+    /** Probe every worker's /health; evict after repeated failures, re-admit on success */
+    @Scheduled(fixedDelayString = "${python.workers.health-interval-ms:5000}")
+    public void probe() {
+        boolean changed = false;
+        for (Worker worker : workers) {
+            boolean ok;
+            try {
+                ok = probeClient.getForEntity(worker.url + "/health", String.class).getStatusCode().is2xxSuccessful();
+            } catch (RestClientException e) {
+                ok = false;
+            }
+            changed |= recordProbe(worker, ok);
+        }
+        if (changed) rebuildRing();
+
+        probeRounds.incrementAndGet();
+        if (workers.stream().anyMatch(Worker::isHealthy)) availableRounds.incrementAndGet();
+    }
+
+    /** Percentage of health probe rounds in which inference was available (100 before the first round) */
+    public double getAvailability() {
+        long rounds = probeRounds.get();
+        return rounds == 0 ? 100.0 : 100.0 * availableRounds.get() / rounds;
+    }
+
+    private synchronized boolean recordProbe(Worker worker, boolean ok) {
+        if (ok) {
+            worker.failedProbes = 0;
+            if (worker.healthy) return false;
+            worker.healthy = true;
+            log.info("Python worker {} re-admitted", worker.url);
+            return true;
+        }
+
+        worker.failedProbes++;
+        if (!worker.healthy || worker.failedProbes < evictAfter) return false;
+        worker.healthy = false;
+        log.warn("Python worker {} evicted after {} failed health checks", worker.url, worker.failedProbes);
+        return true;
+    }
+
+    // Consistent hashing with bounded loads
+    private Worker choose(Long userId) {
+        List<Worker> healthy = workers.stream().filter(Worker::isHealthy).toList();
+        if (healthy.isEmpty()) return null;
+
+        int total = 1;
+        for (Worker w : healthy) total += w.sessions.get();
+        int bound = (int) Math.ceil(total * loadFactor / healthy.size());
+
+        NavigableMap<Long, Worker> snapshot = ring;
+        long h = hash("user:" + userId);
+        for (Worker w : snapshot.tailMap(h, true).values()) {
+            if (w.healthy && w.sessions.get() < bound) return w;
+        }
+        for (Worker w : snapshot.headMap(h, false).values()) {
+            if (w.healthy && w.sessions.get() < bound) return w;
+        }
+        return healthy.stream().min(Comparator.comparingInt(Worker::getSessions)).orElse(null);
+    }
+
+    private Worker ringOwner(long h) {
+        NavigableMap<Long, Worker> snapshot = ring;
+        if (snapshot.isEmpty()) return null;
+        Map.Entry<Long, Worker> entry = snapshot.ceilingEntry(h);
+        return entry != null ? entry.getValue() : snapshot.firstEntry().getValue();
+    }
+
+    private void rebuildRing() {
+        TreeMap<Long, Worker> next = new TreeMap<>();
+        for (Worker worker : workers) {
+            if (!worker.healthy) continue;
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                next.put(hash(worker.url + "#" + v), worker);
+            }
+        }
+        ring = next;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (digest[i] & 0xff);
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.LandmarkBatchDto;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.inference.LandmarkClassifier;
+import com.asl.backend.util.DirectBufferPool;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes batches of client-side hand landmarks and feeds them to the caller's session.
+ *
+ * Binary batch format (application/octet-stream), all little-endian:
+ * <pre>
+ *   uint16  version      1
+ *   uint16  frameCount
+ *   frameCount x {
+ *     uint32   seq        increasing per session; older or repeated frames are skipped
+ *     int64    timestamp  capture time, epoch millis
+ *     float32  landmarks[63]   21 landmarks x (x, y, z), as MediaPipe reports them
+ *   }
+ * </pre>
+ * A frame is 264 bytes. The request body is read straight into a pooled direct buffer.
+ */
+@Service
+@RequiredArgsConstructor
+public class LandmarkIngestService {
+
+    public static final int VERSION = 1;
+    public static final int LANDMARK_VALUES = 63;
+    public static final int HEADER_BYTES = 4;
+    public static final int FRAME_BYTES = 4 + 8 + LANDMARK_VALUES * Float.BYTES;
+
+    private final DetectionService detectionService;
+    private final LandmarkClassifier landmarkClassifier;
+
+    @Value("${detection.landmarks.max-frames:256}")
+    private int maxFrames;
+
+    @Value("${detection.landmarks.pooled-buffers:32}")
+    private int pooledBuffers;
+
+    private DirectBufferPool bufferPool;
+    private final ThreadLocal<float[]> frameBuffer = ThreadLocal.withInitial(() -> new float[LANDMARK_VALUES]);
+
+    /** Rejected batch; the message is safe to return to the client */
+    public static class InvalidBatchException extends RuntimeException {
+        public InvalidBatchException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        bufferPool = new DirectBufferPool(HEADER_BYTES + maxFrames * FRAME_BYTES, pooledBuffers);
+    }
+
+    /** Frames can only be classified when the in-JVM model is loaded */
+    public boolean isAvailable() {
+        return landmarkClassifier.isAvailable();
+    }
+
+    /** Decode a binary batch and attach its frames to the user's active session */
+    public Map<String, Object> ingestBinary(Long userId, InputStream body) throws IOException {
+        DetectionSession session = requireSession(userId);
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            readFully(body, buffer);
+            buffer.flip();
+
+            if (buffer.remaining() < HEADER_BYTES) throw new InvalidBatchException("Missing batch header");
+            int version = Short.toUnsignedInt(buffer.getShort());
+            int frameCount = Short.toUnsignedInt(buffer.getShort());
+            if (version != VERSION) throw new InvalidBatchException("Unsupported batch version " + version);
+            if (buffer.remaining() != frameCount * FRAME_BYTES) {
+                throw new InvalidBatchException("Expected " + frameCount + " frames of " + FRAME_BYTES + " bytes");
+            }
+
+            BatchResult result = new BatchResult();
+            float[] landmarks = frameBuffer.get();
+            for (int f = 0; f < frameCount; f++) {
+                long seq = Integer.toUnsignedLong(buffer.getInt());
+                long capturedAt = buffer.getLong();
+                for (int i = 0; i < LANDMARK_VALUES; i++) {
+                    landmarks[i] = buffer.getFloat();
+                }
+                result.add(detectionService.ingestLandmarkFrame(userId, session, seq, capturedAt, landmarks));
+            }
+            return result.toResponse();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /** JSON fallback with the same semantics as the binary format */
+    public Map<String, Object> ingestJson(Long userId, LandmarkBatchDto batch) {
+        DetectionSession session = requireSession(userId);
+        if (batch.getFrames() == null || batch.getFrames().isEmpty()) throw new InvalidBatchException("No frames");
+        if (batch.getFrames().size() > maxFrames) throw new InvalidBatchException("At most " + maxFrames + " frames per batch");
+
+        // the whole batch is checked before any frame is recorded, like the binary size check
+        for (LandmarkBatchDto.Frame frame : batch.getFrames()) {
+            if (frame == null || frame.getLandmarks() == null || frame.getLandmarks().length != LANDMARK_VALUES) {
+                throw new InvalidBatchException("Each frame needs " + LANDMARK_VALUES + " landmark values");
+            }
+        }
+
+        BatchResult result = new BatchResult();
+        for (LandmarkBatchDto.Frame frame : batch.getFrames()) {
+            result.add(detectionService.ingestLandmarkFrame(userId, session, frame.getSeq(), frame.getTimestamp(),
+                    frame.getLandmarks()));
+        }
+        return result.toResponse();
+    }
+
+    private DetectionSession requireSession(Long userId) {
+        DetectionSession session = detectionService.getActiveSession(userId);
+        if (session == null) throw new IllegalStateException("No active detection session");
+        return session;
+    }
+
+    private static void readFully(InputStream body, ByteBuffer buffer) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(body);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) return;
+        }
+        // buffer is full; anything left means the batch is larger than allowed
+        if (body.read() >= 0) throw new InvalidBatchException("Batch too large");
+    }
+
+    private static class BatchResult {
+        private int accepted;
+        private int skipped;
+        private LandmarkClassifier.Prediction last;
+
+        void add(LandmarkClassifier.Prediction prediction) {
+            if (prediction == null) {
+                skipped++;
+            } else {
+                accepted++;
+                last = prediction;
+            }
+        }
+
+        Map<String, Object> toResponse() {
+            Map<String, Object> body = new HashMap<>();
+            body.put("accepted", accepted);
+            body.put("skipped", skipped);
+            body.put("prediction", last != null ? last.letter() : null);
+            body.put("confidence", last != null ? last.confidence() : 0.0);
+            return body;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.PlatformLetterCount;
+import com.asl.backend.entity.PlatformRollup;
+import com.asl.backend.repository.PlatformLetterCountRepository;
+import com.asl.backend.repository.PlatformRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maintains the platform rollup (sessions, signs, confidence sum, per-letter counts).
+ * Increments run inside the caller's transaction, so the rollup always matches
+ * the committed results.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlatformRollupService {
+
+    private final PlatformRollupRepository rollupRepo;
+    private final PlatformLetterCountRepository letterCountRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Read-only view of the rollup */
+    public record PlatformTotals(long totalSessions, long totalSigns, double confidenceSum,
+                                 Map<String, Long> letterCounts) {
+        public double getAccuracyRate() {
+            return totalSigns > 0 ? confidenceSum / totalSigns : 0.0;
+        }
+    }
+
+    /** Seed the rollup from existing data the first time the application starts */
+    @PostConstruct
+    public void initialize() {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (rollupRepo.seed() > 0) {
+                    letterCountRepo.seed();
+                    log.info("Seeded platform rollup from existing detection data");
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Could not seed platform rollup: {}", e.getMessage());
+        }
+    }
+
+    /** Count a new session; call within the transaction that creates it */
+    public void sessionStarted() {
+        rollupRepo.incrementSessions();
+    }
+
+    /** Add a batch of results; call within the transaction that inserts them */
+    public void resultsWritten(Collection<DetectionResult> results) {
+        long signs = 0;
+        double confidence = 0;
+        Map<String, Long> perLetter = new HashMap<>();
+        for (DetectionResult r : results) {
+            signs += r.getObservationCount();
+            confidence += r.getConfidenceTotal();
+            perLetter.merge(r.getLetter(), (long) r.getObservationCount(), Long::sum);
+        }
+
+        rollupRepo.addSigns(signs, confidence);
+        // fixed order keeps concurrent upserts from deadlocking on letter rows
+        perLetter.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> letterCountRepo.add(e.getKey(), e.getValue()));
+    }
+
+    /** Current totals: one row plus at most 29 letter rows, independent of data size */
+    @Transactional(readOnly = true)
+    public PlatformTotals getTotals() {
+        PlatformRollup rollup = rollupRepo.findById(PlatformRollup.SINGLETON_ID)
+                .orElseGet(() -> new PlatformRollup(PlatformRollup.SINGLETON_ID, 0, 0, 0.0));
+
+        Map<String, Long> letterCounts = new LinkedHashMap<>();
+        for (PlatformLetterCount c : letterCountRepo.findAll()) {
+            letterCounts.put(c.getLetter(), c.getCount());
+        }
+        return new PlatformTotals(rollup.getTotalSessions(), rollup.getTotalSigns(), rollup.getConfidenceSum(), letterCounts);
+    }
+}
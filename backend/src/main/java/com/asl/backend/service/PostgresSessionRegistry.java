@@ -0,0 +1,276 @@
+package com.asl.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Registry shared by all backend instances through Postgres.
+ * Entries live in UNLOGGED tables (no WAL; they are lost on a database crash, which
+ * only forgets sessions that were running). Each node keeps a near-cache of
+ * user -> session lookups, invalidated by NOTIFY on {@value #CHANNEL}, which a
+ * dedicated connection LISTENs on; counts are cached for {@code count-cache-ms}.
+ * Nodes heartbeat into {@code registry_nodes}, and entries of nodes that stop
+ * heartbeating are removed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "detection.registry", havingValue = "postgres")
+public class PostgresSessionRegistry implements SessionRegistry {
+
+    static final String CHANNEL = "asl_session_registry";
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+
+    /** Defaults to a random id per start */
+    @Value("${detection.registry.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${detection.registry.count-cache-ms:1000}")
+    private long countCacheMs;
+
+    /** Nodes without a heartbeat for this long are considered dead */
+    @Value("${detection.registry.node-timeout-ms:30000}")
+    private long nodeTimeoutMs;
+
+    private String nodeId;
+    private volatile Consumer<Long> stopHandler = userId -> {};
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    private final Map<Long, Optional<Long>> sessionCache = new ConcurrentHashMap<>();
+    // bumped by every invalidation, so a lookup racing one does not cache a stale row
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Map<Long, String> writtenLetters = new ConcurrentHashMap<>();
+    private volatile CachedCount sessionCount = new CachedCount(0, 0);
+    private volatile CachedCount userCount = new CachedCount(0, 0);
+
+    private record CachedCount(long value, long atMillis) {}
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : configuredNodeId;
+
+        jdbc.execute("CREATE UNLOGGED TABLE IF NOT EXISTS registry_nodes (" +
+                "node_id VARCHAR(64) PRIMARY KEY, seen_at TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE UNLOGGED TABLE IF NOT EXISTS registry_active_sessions (" +
+                "user_id BIGINT PRIMARY KEY, session_id BIGINT NOT NULL, node_id VARCHAR(64) NOT NULL, " +
+                "latest_letter VARCHAR(16), started_at TIMESTAMP NOT NULL DEFAULT now())");
+        // one row per node a user is present on: presence is tracked per node, and a user counts once
+        jdbc.execute("CREATE UNLOGGED TABLE IF NOT EXISTS registry_user_presence (" +
+                "email VARCHAR(255) NOT NULL, node_id VARCHAR(64) NOT NULL, " +
+                "logged_in_at TIMESTAMP NOT NULL DEFAULT now(), PRIMARY KEY (email, node_id))");
+        heartbeat();
+
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("session-registry-listener").start(this::listen);
+        log.info("Session registry: postgres, node {}", nodeId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listener != null) listener.interrupt();
+        // Sessions and logins held in this node's memory end with it
+        jdbc.update("DELETE FROM registry_active_sessions WHERE node_id = ?", nodeId);
+        jdbc.update("DELETE FROM registry_user_presence WHERE node_id = ?", nodeId);
+        jdbc.update("DELETE FROM registry_nodes WHERE node_id = ?", nodeId);
+        notify("reset");
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void register(Long userId, Long sessionId) {
+        writtenLetters.remove(userId);
+        jdbc.update("INSERT INTO registry_active_sessions (user_id, session_id, node_id, latest_letter) " +
+                "VALUES (?, ?, ?, '') ON CONFLICT (user_id) DO UPDATE SET session_id = EXCLUDED.session_id, " +
+                "node_id = EXCLUDED.node_id, latest_letter = '', started_at = now()", userId, sessionId, nodeId);
+        notify("inv:" + userId);
+    }
+
+    @Override
+    public Long sessionOf(Long userId) {
+        if (listening) {
+            Optional<Long> cached = sessionCache.get(userId);
+            if (cached != null) return cached.orElse(null);
+        }
+
+        long generation = invalidations.get();
+        List<Long> rows = jdbc.queryForList(
+                "SELECT session_id FROM registry_active_sessions WHERE user_id = ?", Long.class, userId);
+        Long sessionId = rows.isEmpty() ? null : rows.get(0);
+        if (listening && invalidations.get() == generation) sessionCache.put(userId, Optional.ofNullable(sessionId));
+        return sessionId;
+    }
+
+    @Override
+    public Long unregister(Long userId) {
+        writtenLetters.remove(userId);
+        List<Long> rows = jdbc.queryForList("DELETE FROM registry_active_sessions WHERE user_id = ? AND node_id = ? " +
+                "RETURNING session_id", Long.class, userId, nodeId);
+        if (rows.isEmpty()) return null;
+        notify("inv:" + userId);
+        return rows.get(0);
+    }
+
+    @Override
+    public Long requestStop(Long userId) {
+        List<Map<String, Object>> rows = jdbc.queryForList("DELETE FROM registry_active_sessions " +
+                "WHERE user_id = ? AND node_id <> ? RETURNING session_id, node_id", userId, nodeId);
+        if (rows.isEmpty()) return null;
+        notify("stop:" + userId + ":" + rows.get(0).get("node_id"));
+        return ((Number) rows.get(0).get("session_id")).longValue();
+    }
+
+    @Override
+    public void onStopRequested(Consumer<Long> handler) {
+        stopHandler = handler;
+    }
+
+    @Override
+    public void updateLatestPrediction(Long userId, String letter) {
+        if (Objects.equals(writtenLetters.put(userId, letter), letter)) return;
+        jdbc.update("UPDATE registry_active_sessions SET latest_letter = ? WHERE user_id = ? AND node_id = ?",
+                letter, userId, nodeId);
+    }
+
+    @Override
+    public String latestPrediction(Long userId) {
+        List<String> rows = jdbc.queryForList(
+                "SELECT latest_letter FROM registry_active_sessions WHERE user_id = ?", String.class, userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public long activeSessionCount() {
+        CachedCount cached = sessionCount;
+        if (System.currentTimeMillis() - cached.atMillis() < countCacheMs) return cached.value();
+        long value = count("SELECT count(*) FROM registry_active_sessions");
+        sessionCount = new CachedCount(value, System.currentTimeMillis());
+        return value;
+    }
+
+    @Override
+    public void userLoggedIn(String email) {
+        jdbc.update("INSERT INTO registry_user_presence (email, node_id) VALUES (?, ?) " +
+                "ON CONFLICT (email, node_id) DO UPDATE SET logged_in_at = now()", email, nodeId);
+    }
+
+    @Override
+    public void userLoggedOut(String email) {
+        // only this node's presence: the user may still be present on others
+        jdbc.update("DELETE FROM registry_user_presence WHERE email = ? AND node_id = ?", email, nodeId);
+    }
+
+    @Override
+    public long loggedInUserCount() {
+        CachedCount cached = userCount;
+        if (System.currentTimeMillis() - cached.atMillis() < countCacheMs) return cached.value();
+        long value = count("SELECT count(DISTINCT email) FROM registry_user_presence");
+        userCount = new CachedCount(value, System.currentTimeMillis());
+        return value;
+    }
+
+    /** Record this node as alive and drop entries of nodes that stopped heartbeating */
+    @Scheduled(fixedDelayString = "${detection.registry.heartbeat-ms:5000}")
+    public void heartbeat() {
+        jdbc.update("INSERT INTO registry_nodes (node_id, seen_at) VALUES (?, now()) " +
+                "ON CONFLICT (node_id) DO UPDATE SET seen_at = now()", nodeId);
+
+        String alive = "SELECT node_id FROM registry_nodes WHERE seen_at > now() - ? * interval '1 millisecond'";
+        int sessions = jdbc.update("DELETE FROM registry_active_sessions WHERE node_id NOT IN (" + alive + ")", nodeTimeoutMs);
+        int users = jdbc.update("DELETE FROM registry_user_presence WHERE node_id NOT IN (" + alive + ")", nodeTimeoutMs);
+        jdbc.update("DELETE FROM registry_nodes WHERE seen_at <= now() - ? * interval '1 millisecond'", nodeTimeoutMs);
+        if (sessions > 0 || users > 0) {
+            log.warn("Session registry: removed {} sessions and {} logins of dead nodes", sessions, users);
+            notify("reset");
+        }
+    }
+
+    private long count(String sql) {
+        Long value = jdbc.queryForObject(sql, Long.class);
+        return value != null ? value : 0;
+    }
+
+    private void notify(String payload) {
+        jdbc.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    // Holds one pooled connection for as long as the node runs
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                // Invalidations may have been missed while not listening
+                clearCache();
+                listening = true;
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) handle(notification.getParameter());
+                }
+            } catch (SQLException e) {
+                listening = false;
+                if (!running) return;
+                log.warn("Session registry listener disconnected: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+        listening = false;
+    }
+
+    private void handle(String payload) {
+        if ("reset".equals(payload)) {
+            clearCache();
+            return;
+        }
+
+        String[] parts = payload.split(":");
+        Long userId = Long.valueOf(parts[1]);
+        invalidations.incrementAndGet();
+        sessionCache.remove(userId);
+
+        if ("stop".equals(parts[0]) && nodeId.equals(parts[2])) {
+            // Stopping flushes to the database; keep it off the listener thread
+            Thread.startVirtualThread(() -> stopHandler.accept(userId));
+        }
+    }
+
+    private void clearCache() {
+        invalidations.incrementAndGet();
+        sessionCache.clear();
+    }
+}
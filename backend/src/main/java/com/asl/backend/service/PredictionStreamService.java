@@ -0,0 +1,241 @@
+package com.asl.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans live predictions out to SSE and WebSocket subscribers.
+ * Every subscriber owns a bounded buffer; when a slow client falls behind the
+ * oldest queued events are dropped instead of growing server memory.
+ */
+@Service
+@Slf4j
+public class PredictionStreamService {
+
+    public static final String EVENT_PREDICTION = "prediction";
+    public static final String EVENT_HEARTBEAT = "heartbeat";
+    public static final String EVENT_STOPPED = "stopped";
+
+    /** A single event queued for a subscriber */
+    public record StreamEvent(String name, Object data) {}
+
+    private record LastPrediction(String letter, double confidence) {}
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, LastPrediction> lastPublished = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${detection.stream.buffer-size:16}")
+    private int bufferSize;
+
+    @Value("${detection.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    /** Open an SSE stream for a user */
+    public SseEmitter subscribeSse(Long userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        SseSubscriber subscriber = new SseSubscriber(emitter, bufferSize);
+
+        emitter.onCompletion(() -> unregister(userId, subscriber));
+        emitter.onTimeout(() -> unregister(userId, subscriber));
+        emitter.onError(e -> unregister(userId, subscriber));
+
+        register(userId, subscriber);
+        return emitter;
+    }
+
+    /** Attach a subscriber (SSE or WebSocket) and replay the last known prediction */
+    public void register(Long userId, Subscriber subscriber) {
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        LastPrediction last = lastPublished.get(userId);
+        if (last != null) {
+            enqueue(subscriber, new StreamEvent(EVENT_PREDICTION, payload(last.letter(), last.confidence())));
+        }
+    }
+
+    /** Detach a subscriber, e.g. when its connection closed */
+    public void unregister(Long userId, Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.computeIfPresent(userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Push a prediction to the user's subscribers.
+     * Returns false (and sends nothing) when letter and confidence are unchanged.
+     */
+    public boolean publish(Long userId, String letter, double confidence) {
+        LastPrediction next = new LastPrediction(letter, confidence);
+        LastPrediction previous = lastPublished.put(userId, next);
+        if (next.equals(previous)) {
+            return false;
+        }
+
+        Set<Subscriber> targets = subscribers.get(userId);
+        if (targets != null) {
+            StreamEvent event = new StreamEvent(EVENT_PREDICTION, payload(letter, confidence));
+            targets.forEach(s -> enqueue(s, event));
+        }
+        return true;
+    }
+
+    /** Send a final event to every subscriber of the user and close their streams */
+    public void close(Long userId, Map<String, Object> summary) {
+        lastPublished.remove(userId);
+        Set<Subscriber> targets = subscribers.remove(userId);
+        if (targets == null) return;
+
+        StreamEvent event = new StreamEvent(EVENT_STOPPED, summary);
+        for (Subscriber s : targets) {
+            s.closing = true;
+            enqueue(s, event);
+        }
+    }
+
+    /** Keep idle connections (and intermediate proxies) alive */
+    @Scheduled(fixedRateString = "${detection.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        StreamEvent event = new StreamEvent(EVENT_HEARTBEAT, System.currentTimeMillis());
+        subscribers.values().forEach(set -> set.forEach(s -> enqueue(s, event)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::complete));
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, StreamEvent event) {
+        if (subscriber.offer(event)) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Only one drain runs per subscriber at a time, so sends are never concurrent
+    private void drain(Subscriber subscriber) {
+        try {
+            StreamEvent event;
+            while ((event = subscriber.poll()) != null) {
+                subscriber.send(event);
+            }
+            if (subscriber.closing) {
+                subscriber.closed = true;
+                subscriber.complete();
+            }
+        } catch (Exception e) {
+            log.debug("Dropping prediction subscriber: {}", e.getMessage());
+            subscriber.closed = true;
+            subscriber.complete();
+            subscribers.values().forEach(set -> set.remove(subscriber));
+        } finally {
+            subscriber.draining.set(false);
+            if (!subscriber.closed && subscriber.hasPending()) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    private static Map<String, Object> payload(String letter, double confidence) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("prediction", letter);
+        data.put("confidence", confidence);
+        data.put("timestamp", System.currentTimeMillis());
+        return data;
+    }
+
+    /** A connected client with its own bounded, drop-oldest event buffer */
+    public abstract static class Subscriber {
+        private final Deque<StreamEvent> buffer = new ArrayDeque<>();
+        private final int capacity;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closing;
+        private volatile boolean closed;
+        private long dropped;
+
+        protected Subscriber(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        boolean offer(StreamEvent event) {
+            synchronized (buffer) {
+                if (closed) return false;
+                if (buffer.size() >= capacity) {
+                    buffer.pollFirst();
+                    dropped++;
+                }
+                buffer.addLast(event);
+                return true;
+            }
+        }
+
+        StreamEvent poll() {
+            synchronized (buffer) {
+                return buffer.pollFirst();
+            }
+        }
+
+        boolean hasPending() {
+            synchronized (buffer) {
+                return !buffer.isEmpty();
+            }
+        }
+
+        public long getDropped() {
+            synchronized (buffer) {
+                return dropped;
+            }
+        }
+
+        protected abstract void send(StreamEvent event) throws IOException;
+
+        protected abstract void complete();
+    }
+
+    private static class SseSubscriber extends Subscriber {
+        private final SseEmitter emitter;
+
+        SseSubscriber(SseEmitter emitter, int capacity) {
+            super(capacity);
+            this.emitter = emitter;
+        }
+
+        @Override
+        protected void send(StreamEvent event) throws IOException {
+            if (EVENT_HEARTBEAT.equals(event.name())) {
+                emitter.send(SseEmitter.event().comment(EVENT_HEARTBEAT));
+            } else {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            }
+        }
+
+        @Override
+        protected void complete() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Logged-in users of this node, with a last-seen time refreshed by every authenticated request.
+ * Users not seen for {@code presence.ttl} (the servlet session timeout by default) expire,
+ * as do users whose HTTP session is destroyed, so the count no longer grows with sessions
+ * that simply timed out. Arrivals and departures are forwarded to the {@link SessionRegistry}.
+ * <p>
+ * A touch is a map lookup and a volatile write. Expiry runs on a timing wheel of
+ * {@code presence.tick-ms} slots: each user sits in the slot of their earliest possible
+ * expiry, and a tick only visits that slot, re-slotting users seen since. The count is a
+ * LongAdder, exact up to users that expired less than one tick ago.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceTracker implements HttpSessionListener {
+
+    private final SessionRegistry sessionRegistry;
+
+    @Value("${presence.ttl:${server.servlet.session.timeout:30m}}")
+    private Duration ttl;
+
+    @Value("${presence.tick-ms:10000}")
+    private long tickMs;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<String, Presence> present = new ConcurrentHashMap<>();
+    private final LongAdder count = new LongAdder();
+    private Set<String>[] wheel;
+    private long ttlMs;
+    private volatile long cursor;
+
+    private static final class Presence {
+        private volatile long lastSeen;
+
+        private Presence(long lastSeen) {
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        ttlMs = ttl.toMillis();
+        // one turn of the wheel covers a full TTL, so a slot never holds users of two turns
+        wheel = new Set[(int) (ttlMs / tickMs) + 2];
+        for (int i = 0; i < wheel.length; i++) wheel[i] = ConcurrentHashMap.newKeySet();
+        cursor = clock.getAsLong() / tickMs;
+    }
+
+    /** Mark a user as seen now, adding them if they were not present */
+    public void touch(String email) {
+        long now = clock.getAsLong();
+        Presence presence = present.get(email);
+        if (presence != null) {
+            presence.lastSeen = now;
+            return;
+        }
+
+        Presence fresh = new Presence(now);
+        if (present.putIfAbsent(email, fresh) == null) {
+            count.increment();
+            schedule(email, fresh);
+            sessionRegistry.userLoggedIn(email);
+        } else {
+            touch(email);
+        }
+    }
+
+    /** Remove a user now (logout) */
+    public void remove(String email) {
+        if (present.remove(email) != null) {
+            count.decrement();
+            sessionRegistry.userLoggedOut(email);
+        }
+    }
+
+    /** Whether a user was seen within the TTL; does not wait for the wheel */
+    public boolean isPresent(String email) {
+        Presence presence = present.get(email);
+        return presence != null && clock.getAsLong() - presence.lastSeen < ttlMs;
+    }
+
+    /** Users present on this node */
+    public long getPresentCount() {
+        return count.sum();
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        if (event.getSession().getAttribute("user") instanceof User user) {
+            remove(user.getEmail());
+        }
+    }
+
+    /** Advance the wheel to now, expiring users due in the passed slots */
+    @Scheduled(fixedDelayString = "${presence.tick-ms:10000}")
+    public synchronized void expire() {
+        long now = clock.getAsLong();
+        long target = now / tickMs;
+        // after a long pause every slot is due once
+        if (target - cursor > wheel.length) cursor = target - wheel.length;
+
+        while (cursor < target) {
+            cursor++;
+            Set<String> slot = wheel[(int) (cursor % wheel.length)];
+            // copy first: re-slotted users may land back in this slot for its next turn
+            for (String email : List.copyOf(slot)) {
+                slot.remove(email);
+                Presence presence = present.get(email);
+                if (presence == null) continue;
+                if (now - presence.lastSeen >= ttlMs) {
+                    if (present.remove(email, presence)) {
+                        count.decrement();
+                        sessionRegistry.userLoggedOut(email);
+                    }
+                } else {
+                    schedule(email, presence);
+                }
+            }
+        }
+    }
+
+    private void schedule(String email, Presence presence) {
+        // touches never wait for the sweep; a user slotted behind a lagging cursor expires a turn late at worst
+        long dueTick = Math.floorDiv(presence.lastSeen + ttlMs, tickMs) + 1;
+        wheel[(int) (Math.max(dueTick, cursor + 1) % wheel.length)].add(email);
+    }
+}
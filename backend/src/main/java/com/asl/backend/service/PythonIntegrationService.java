@@ -1,85 +1,233 @@
 package com.asl.backend.service;
 
+import com.asl.backend.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestClientException;
 
-import java.util.Map;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Non-blocking client for the Python inference workers.
+ * One shared {@link HttpClient} keeps pooled keep-alive connections to every worker and
+ * all calls return futures, so no servlet thread waits on Python. Each worker has its own
+ * circuit breaker; while it is open, result polls fail fast with that worker's last
+ * known result instead of waiting for a timeout.
+ */
 @Service
 @Slf4j
 public class PythonIntegrationService {
 
-    private final RestTemplate restTemplate;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(3);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(3);
 
-    @Value("${python.api.url:http://localhost:8000}")
-    private String fastApiBaseUrl;
+    private final HttpClient httpClient;
+    private final ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper;
+    private final InferenceWorkerPool workerPool;
+    private final DetectionMetrics metrics;
+    private final int failureThreshold;
+    private final long openMillis;
 
-    public PythonIntegrationService() {
-        // Set timeouts for safety
-        var factory = new org.springframework.http.client.SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(3000); // 3 seconds
-        factory.setReadTimeout(3000);    // 3 seconds
-        this.restTemplate = new RestTemplate(factory);
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, PythonResult> lastResults = new ConcurrentHashMap<>();
+
+    public PythonIntegrationService(InferenceWorkerPool workerPool,
+                                    ObjectMapper objectMapper,
+                                    DetectionMetrics metrics,
+                                    @Value("${python.breaker.failure-threshold:5}") int failureThreshold,
+                                    @Value("${python.breaker.open-ms:5000}") long openMillis) {
+        this.workerPool = workerPool;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        // Set timeouts for safety; request timeouts are set per request
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(httpExecutor)
+                .build();
     }
 
-    /** DTO for Python result */
-    public record PythonResult(String letter, double confidence) {}
+    @PreDestroy
+    public void shutdown() {
+        // abort calls in flight so closing the executor does not wait for their timeouts
+        httpClient.shutdownNow();
+        httpExecutor.close();
+    }
 
-    /** Start the ASL detection loop */
-    public String startDetection() {
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    fastApiBaseUrl + "/start-detection",
-                    null,
-                    Map.class
-            );
-            return response.getBody().getOrDefault("status", "error").toString();
-        } catch (RestClientException e) {
-            log.error("Error starting detection: {}", e.getMessage(), e);
-            return "error";
+    /** DTO for Python result; letter is null when no confident sign was seen */
+    public record PythonResult(String letter, double confidence, String timestamp) {}
+
+    private static final PythonResult UNCERTAIN = new PythonResult("Uncertain", 0.0, null);
+
+    /** Non-2xx answer or unreadable body from a worker */
+    static class UpstreamException extends RuntimeException {
+        UpstreamException(String message) {
+            super(message, null, false, false);
         }
     }
 
-    /** Stop the ASL detection loop */
-    public String stopDetection() {
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    fastApiBaseUrl + "/stop-detection",
-                    null,
-                    Map.class
-            );
-            return response.getBody().getOrDefault("status", "error").toString();
-        } catch (RestClientException e) {
-            log.error("Error stopping detection: {}", e.getMessage(), e);
-            return "error";
+    /** Call rejected locally because the worker's breaker is open */
+    static class CircuitOpenException extends UpstreamException {
+        CircuitOpenException(String url) {
+            super("circuit open for " + url);
         }
     }
 
-    /** Get the latest detection result in a type-safe way */
-    public PythonResult getLatestResult() {
-        try {
-            ResponseEntity<Map> response = restTemplate.getForEntity(
-                    fastApiBaseUrl + "/get-results",
-                    Map.class
-            );
+    /** Pin the user to a worker and start its ASL detection loop */
+    public CompletableFuture<String> startDetection(Long userId) {
+        InferenceWorkerPool.Placement placement = workerPool.place(userId);
+        if (placement == null) {
+            log.error("Error starting detection: no healthy Python worker");
+            return CompletableFuture.completedFuture("error");
+        }
+        return startDetection(placement.worker());
+    }
 
-            Map<String, Object> body = response.getBody();
-            if (body == null) {
-                return new PythonResult("Uncertain", 0.0);
-            }
+    /**
+     * Release the user's worker, and stop its detection loop once no session is left on it:
+     * the loop is shared by every user pinned to the worker.
+     */
+    public CompletableFuture<String> stopDetection(Long userId) {
+        InferenceWorkerPool.Worker worker = workerPool.assigned(userId);
+        int remaining = workerPool.release(userId);
+        if (worker == null) return CompletableFuture.completedFuture("error");
+        if (remaining > 0) return CompletableFuture.completedFuture("stopped");
+        return status(worker, "/stop-detection", "stop", "stopping detection");
+    }
 
-            String letter = body.getOrDefault("letter", "Uncertain").toString();
-            double confidence = Double.parseDouble(body.getOrDefault("confidence", 0.0).toString());
+    /** Latest detection result from the user's worker; never completes exceptionally */
+    public CompletableFuture<PythonResult> getLatestResult(Long userId) {
+        return resolve(userId).thenCompose(worker -> worker != null
+                ? fetchResult(worker)
+                : CompletableFuture.completedFuture(UNCERTAIN));
+    }
+
+    /** Breaker state per worker URL, for monitoring */
+    public Map<String, CircuitBreaker.State> getBreakerStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<>();
+        breakers.forEach((url, breaker) -> states.put(url, breaker.getState()));
+        return states;
+    }
 
-            return new PythonResult(letter, confidence);
+    /**
+     * Worker serving a user: pinned users follow their worker (restarting the loop if it
+     * was moved), others read the ring owner. Completes with null when no worker is healthy.
+     */
+    public CompletableFuture<InferenceWorkerPool.Worker> resolve(Long userId) {
+        InferenceWorkerPool.Worker assigned = workerPool.assigned(userId);
+        if (assigned == null) return CompletableFuture.completedFuture(workerPool.peek(userId));
+        if (assigned.isHealthy()) return CompletableFuture.completedFuture(assigned);
 
-        } catch (RestClientException | NumberFormatException e) {
-            log.error("Error fetching latest result: {}", e.getMessage(), e);
-            return new PythonResult("Uncertain", 0.0);
+        InferenceWorkerPool.Placement placement = workerPool.place(userId);
+        if (placement == null) return CompletableFuture.completedFuture(null);
+        if (placement.reassigned()) {
+            log.warn("User {} moved to Python worker {}", userId, placement.worker().getUrl());
+            return startDetection(placement.worker()).thenApply(status -> placement.worker());
         }
+        return CompletableFuture.completedFuture(placement.worker());
+    }
+
+    private CompletableFuture<String> startDetection(InferenceWorkerPool.Worker worker) {
+        return status(worker, "/start-detection", "start", "starting detection");
+    }
+
+    private CompletableFuture<String> status(InferenceWorkerPool.Worker worker, String path, String operation, String action) {
+        HttpRequest request = request(worker, path).POST(HttpRequest.BodyPublishers.noBody()).build();
+        return call(worker, operation, request)
+                .thenApply(body -> String.valueOf(body.getOrDefault("status", "error")))
+                .exceptionally(e -> {
+                    logFailure(action, worker, e);
+                    return "error";
+                });
+    }
+
+    /** One GET /get-results on a worker; never completes exceptionally */
+    public CompletableFuture<PythonResult> fetchResult(InferenceWorkerPool.Worker worker) {
+        HttpRequest request = request(worker, "/get-results").GET().build();
+        return call(worker, "get-results", request)
+                .thenApply(PythonIntegrationService::toResult)
+                .whenComplete((result, e) -> {
+                    if (result != null) lastResults.put(worker.getUrl(), result);
+                })
+                .exceptionally(e -> {
+                    logFailure("fetching latest result", worker, e);
+                    return lastResults.getOrDefault(worker.getUrl(), UNCERTAIN);
+                });
+    }
+
+    // Timed per operation and outcome (success, error, rejected by the breaker)
+    private CompletableFuture<Map<String, Object>> call(InferenceWorkerPool.Worker worker, String operation, HttpRequest request) {
+        Timer.Sample sample = metrics.startUpstream();
+        CircuitBreaker breaker = breakers.computeIfAbsent(worker.getUrl(),
+                url -> new CircuitBreaker("python " + url, failureThreshold, openMillis));
+        if (!breaker.tryAcquire()) {
+            metrics.upstreamDone(sample, operation, worker.getUrl(), "rejected");
+            return CompletableFuture.failedFuture(new CircuitOpenException(worker.getUrl()));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(this::parse)
+                .whenComplete((body, e) -> {
+                    if (e == null) breaker.onSuccess();
+                    else breaker.onFailure();
+                    metrics.upstreamDone(sample, operation, worker.getUrl(), e == null ? "success" : "error");
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parse(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new UpstreamException("HTTP " + response.statusCode() + " from " + response.uri());
+        }
+        try {
+            Map<String, Object> body = objectMapper.readValue(response.body(), Map.class);
+            return body != null ? body : Map.of();
+        } catch (IOException e) {
+            throw new UpstreamException("Unreadable body from " + response.uri() + ": " + e.getMessage());
+        }
+    }
+
+    private static HttpRequest.Builder request(InferenceWorkerPool.Worker worker, String path) {
+        return HttpRequest.newBuilder(URI.create(worker.getUrl() + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private static PythonResult toResult(Map<String, Object> body) {
+        Object letter = body.get("letter");
+        Object confidence = body.get("confidence");
+        Object timestamp = body.get("timestamp");
+
+        try {
+            return new PythonResult(
+                    letter != null ? letter.toString() : null,
+                    confidence != null ? Double.parseDouble(confidence.toString()) : 0.0,
+                    timestamp != null ? timestamp.toString() : null
+            );
+        } catch (NumberFormatException e) {
+            throw new UpstreamException("Bad confidence value " + confidence);
+        }
+    }
+
+    // One line per failure, no stack trace; calls rejected by an open breaker are not logged
+    private static void logFailure(String action, InferenceWorkerPool.Worker worker, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CircuitOpenException) return;
+        log.warn("Error {} on {}: {}", action, worker.getUrl(), cause.toString());
     }
 }
@@ -0,0 +1,71 @@
+package com.asl.backend.service;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Decides which reads must see the primary database rather than a read replica
+ * (see ReplicaRoutingDataSource): those of a request that may write, those of a user
+ * for {@code sticky-ms} after a write request of theirs (ReadYourWritesInterceptor marks
+ * such requests), and those run inside {@link #onPrimary}, for background work that
+ * writes back what it has just read. The time of a user's last write request is kept in
+ * their HttpSession, next to their login, so it follows them to whichever node serves the
+ * session; it is wall-clock time, comparable between nodes up to their clock skew.
+ */
+@Service
+public class ReadYourWrites {
+
+    /** Request attribute set on requests whose reads go to the primary */
+    public static final String PINNED = ReadYourWrites.class.getName() + ".pinned";
+
+    /** Session attribute: epoch millis at the end of the user's last write request */
+    public static final String LAST_WRITE = ReadYourWrites.class.getName() + ".lastWrite";
+
+    @Value("${datasource.replicas.sticky-ms:5000}")
+    private long stickyMs;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final ThreadLocal<int[]> primaryScope = ThreadLocal.withInitial(() -> new int[1]);
+
+    /** Record a write request of the session's user */
+    public void wrote(HttpSession session) {
+        session.setAttribute(LAST_WRITE, clock.getAsLong());
+    }
+
+    /** Whether the session's user made a write request within the sticky window */
+    public boolean wroteRecently(HttpSession session) {
+        return session.getAttribute(LAST_WRITE) instanceof Long at && clock.getAsLong() - at < stickyMs;
+    }
+
+    /** Whether reads on the calling thread must go to the primary */
+    public boolean pinnedToPrimary() {
+        if (primaryScope.get()[0] > 0) return true;
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    /** Run work whose reads must all see the primary */
+    public <T> T onPrimary(Supplier<T> work) {
+        int[] depth = primaryScope.get();
+        depth[0]++;
+        try {
+            return work.get();
+        } finally {
+            if (--depth[0] == 0) primaryScope.remove();
+        }
+    }
+
+    public void onPrimary(Runnable work) {
+        onPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
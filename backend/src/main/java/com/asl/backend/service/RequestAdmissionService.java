@@ -0,0 +1,110 @@
+package com.asl.backend.service;
+
+import com.asl.backend.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the detection endpoints (see RateLimited).
+ * Each endpoint has its own per-client token buckets, configured with
+ * {@code rate-limit.<endpoint>.per-second} and {@code .burst}; requests that call the
+ * Python service additionally need one of {@code rate-limit.upstream.max-concurrent}
+ * permits, taken without waiting, so overload is shed instead of queued.
+ * Rejections are counted in {@code http.requests.rejected} by endpoint and reason.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RequestAdmissionService {
+
+    /** Outcome of {@link #admit}: rejected requests carry the seconds a client should wait */
+    public record Admission(boolean admitted, boolean holdsPermit, long retryAfterSeconds) {
+        static final Admission ADMITTED = new Admission(true, false, 0);
+        static final Admission ADMITTED_WITH_PERMIT = new Admission(true, true, 0);
+    }
+
+    private final Environment environment;
+    private final DetectionMetrics metrics;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.upstream.max-concurrent:64}")
+    private int maxUpstream;
+
+    @Value("${rate-limit.upstream.retry-after-seconds:1}")
+    private long upstreamRetryAfter;
+
+    private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private Semaphore upstreamPermits;
+
+    @PostConstruct
+    public void init() {
+        upstreamPermits = new Semaphore(Math.max(1, maxUpstream));
+        Gauge.builder("http.requests.upstream.inflight", upstreamPermits, p -> maxUpstream - p.availablePermits())
+                .description("Admitted requests currently calling the Python service")
+                .register(metrics.getRegistry());
+    }
+
+    /**
+     * Admit a request of a client to an endpoint. An admission with a permit must be
+     * handed to {@link #release} once the request has completed.
+     */
+    public Admission admit(String endpoint, String client, boolean upstream) {
+        if (!enabled) return Admission.ADMITTED;
+
+        long waitNanos = limiter(endpoint).tryAcquire(client);
+        if (waitNanos > 0) {
+            rejected(endpoint, "rate");
+            return new Admission(false, false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+        if (!upstream) return Admission.ADMITTED;
+
+        if (!upstreamPermits.tryAcquire()) {
+            rejected(endpoint, "concurrency");
+            return new Admission(false, false, upstreamRetryAfter);
+        }
+        return Admission.ADMITTED_WITH_PERMIT;
+    }
+
+    public void release(Admission admission) {
+        if (admission.holdsPermit()) upstreamPermits.release();
+    }
+
+    /** Forget clients whose buckets have refilled */
+    @Scheduled(fixedDelayString = "${rate-limit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        limiters.values().forEach(RateLimiter::evictFull);
+    }
+
+    private RateLimiter limiter(String endpoint) {
+        RateLimiter limiter = limiters.get(endpoint);
+        if (limiter != null) return limiter;
+        return limiters.computeIfAbsent(endpoint, name -> {
+            double perSecond = environment.getProperty("rate-limit." + name + ".per-second", Double.class, 5.0);
+            int burst = environment.getProperty("rate-limit." + name + ".burst", Integer.class, 10);
+            log.info("Rate limit for {}: {}/s, burst {}", name, perSecond, burst);
+            return new RateLimiter(perSecond, burst);
+        });
+    }
+
+    private void rejected(String endpoint, String reason) {
+        rejections.computeIfAbsent(endpoint + ":" + reason, k -> Counter.builder("http.requests.rejected")
+                .description("Requests rejected with 429 by admission control")
+                .tags("endpoint", endpoint, "reason", reason)
+                .register(metrics.getRegistry())).increment();
+    }
+}
@@ -0,0 +1,172 @@
+package com.asl.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of serialized JSON responses (stats endpoints), with strong ETags.
+ * A value younger than {@code ttl-ms} is served as is. An older one is still served while
+ * a background refresh recomputes it, until it is {@code max-stale-ms} old; then callers
+ * wait for the recomputation. Each key has at most one recomputation in flight, which
+ * every concurrent caller shares. The ETag is a hash of the body, so it only changes
+ * with the content and clients revalidating with If-None-Match get 304 without a body.
+ */
+@Service
+@Slf4j
+public class ResponseCache {
+
+    /** One serialized response */
+    public record Snapshot(byte[] body, String etag, long computedAt) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final DetectionMetrics metrics;
+    private LongSupplier clock = System::currentTimeMillis;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "response-cache-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${response-cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${response-cache.max-stale-ms:60000}")
+    private long maxStaleMs;
+
+    public ResponseCache(ObjectMapper objectMapper, DetectionMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The cached response for a key as 200 with ETag, or 304 when ifNoneMatch matches it.
+     * Exceptions of a recomputation the caller had to wait for are rethrown.
+     */
+    public ResponseEntity<?> respond(String key, String ifNoneMatch, Supplier<?> loader) {
+        Snapshot snapshot = get(key, loader);
+        if (matches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.body());
+    }
+
+    public Snapshot get(String key, Supplier<?> loader) {
+        Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+        Snapshot snapshot = slot.snapshot;
+        long age = snapshot != null ? clock.getAsLong() - snapshot.computedAt() : Long.MAX_VALUE;
+
+        if (age < ttlMs) {
+            count(key, "fresh");
+            return snapshot;
+        }
+        if (age < maxStaleMs) {
+            count(key, "stale");
+            slot.refresh(key, loader, refresher).exceptionally(e -> {
+                log.warn("Background refresh of {} failed: {}", key, e.getMessage());
+                return null;
+            });
+            return snapshot;
+        }
+
+        count(key, "miss");
+        try {
+            return slot.refresh(key, loader, Runnable::run).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private final class Slot {
+        private volatile Snapshot snapshot;
+        private final AtomicReference<CompletableFuture<Snapshot>> inflight = new AtomicReference<>();
+
+        // Claim the key's recomputation and run it on the executor, or join the one already claimed
+        private CompletableFuture<Snapshot> refresh(String key, Supplier<?> loader, Executor executor) {
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            CompletableFuture<Snapshot> running = inflight.compareAndExchange(null, mine);
+            if (running != null) return running;
+
+            try {
+                executor.execute(() -> compute(key, loader, mine));
+            } catch (RejectedExecutionException e) {
+                inflight.set(null);
+                mine.completeExceptionally(e);
+            }
+            return mine;
+        }
+
+        private void compute(String key, Supplier<?> loader, CompletableFuture<Snapshot> result) {
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(loader.get());
+                Snapshot computed = new Snapshot(body, etag(body), clock.getAsLong());
+                snapshot = computed;
+                result.complete(computed);
+            } catch (JsonProcessingException e) {
+                result.completeExceptionally(new IllegalStateException("Cannot serialize " + key, e));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                inflight.set(null);
+            }
+        }
+    }
+
+    private void count(String key, String outcome) {
+        counters.computeIfAbsent(key + ":" + outcome, k -> Counter.builder("http.response.cache")
+                .description("Cached stats responses, by key and whether they were fresh, stale or recomputed")
+                .tags("key", key, "outcome", outcome)
+                .register(metrics.getRegistry())).increment();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // If-None-Match uses weak comparison: W/ prefixes are ignored, "*" matches anything
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+}
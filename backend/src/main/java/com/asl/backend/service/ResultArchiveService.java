@@ -0,0 +1,138 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ResultExportRow;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.entity.SessionResultArchive;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.util.ResultArchiveCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archival of closed sessions' results.
+ * Results of a session stopped more than {@code min-age-hours} ago never change again, so
+ * they are packed into one SessionResultArchive blob (ResultArchiveCodec, optionally
+ * deflated) and their rows deleted, in one transaction per session. Reads through
+ * {@link #readResults} decode archived sessions transparently; the export streams both.
+ * The timeseries endpoint decodes archived sessions of its range too.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResultArchiveService {
+
+    private final DetectionSessionRepository sessionRepo;
+    private final DetectionResultRepository resultRepo;
+    private final SessionResultArchiveRepository archiveRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final DetectionMetrics metrics;
+
+    @Value("${detection.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${detection.archive.min-age-hours:24}")
+    private long minAgeHours;
+
+    /** deflate or none */
+    @Value("${detection.archive.compression:deflate}")
+    private String compression;
+
+    @Value("${detection.archive.chunk-size:100}")
+    private int chunkSize;
+
+    // id of the last session of the previous chunk; the next tick continues after it
+    private long afterId;
+
+    /**
+     * Archive one chunk of sessions per tick, so a large backlog never holds a scheduler
+     * thread for long; once no session is left after the cursor it restarts from the beginning.
+     */
+    @Scheduled(initialDelayString = "${detection.archive.delay-ms:60000}",
+               fixedDelayString = "${detection.archive.interval-ms:60000}")
+    public synchronized void run() {
+        if (!enabled) return;
+
+        LocalDateTime endedBefore = LocalDateTime.now().minusHours(minAgeHours);
+        List<Long> ids = sessionRepo.findIdsToArchive(endedBefore, afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            afterId = 0;
+            return;
+        }
+
+        int sessions = 0;
+        for (Long id : ids) {
+            try {
+                archive(id);
+                sessions++;
+            } catch (RuntimeException e) {
+                log.error("Failed to archive results of session {}: {}", id, e.getMessage());
+            }
+        }
+        afterId = ids.get(ids.size() - 1);
+
+        if (sessions > 0) log.info("Archived results of {} detection sessions", sessions);
+    }
+
+    /** Pack a session's result rows into its archive (merging with an existing one) and delete them */
+    public void archive(Long sessionId) {
+        metrics.timeDb("results-archive", () -> transactionTemplate.executeWithoutResult(tx -> {
+            List<DetectionResult> rows = resultRepo.findBySessionOrdered(sessionId);
+            if (rows.isEmpty()) return;
+
+            SessionResultArchive archive = archiveRepo.findById(sessionId).orElse(null);
+            List<DetectionResult> all = new ArrayList<>();
+            if (archive != null) all.addAll(ResultArchiveCodec.decode(archive.getPayload()));
+            all.addAll(rows);
+
+            byte[] payload = ResultArchiveCodec.encode(all, "deflate".equals(compression));
+            archiveRepo.save(SessionResultArchive.builder()
+                    .sessionId(sessionId)
+                    .resultCount(all.size())
+                    .archivedAt(LocalDateTime.now())
+                    .payload(payload)
+                    .build());
+            resultRepo.deleteBySession(sessionId);
+        }));
+    }
+
+    /**
+     * Results of a session of the given user, from its archive and its rows (archived rows
+     * have no result id); empty when the session does not exist or belongs to someone else.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<ResultExportRow>> readResults(Long sessionId, Long userId) {
+        DetectionSession session = sessionRepo.findById(sessionId).orElse(null);
+        if (session == null || !session.getUser().getId().equals(userId)) return Optional.empty();
+
+        SessionResultArchive archive = archiveRepo.findById(sessionId).orElse(null);
+        List<ResultExportRow> results = new ArrayList<>();
+        if (archive != null) {
+            for (DetectionResult r : ResultArchiveCodec.decode(archive.getPayload())) {
+                results.add(toRow(null, sessionId, userId, r));
+            }
+        }
+        for (DetectionResult r : resultRepo.findBySessionOrdered(sessionId)) {
+            results.add(toRow(r.getId(), sessionId, userId, r));
+        }
+        return Optional.of(results);
+    }
+
+    static ResultExportRow toRow(Long resultId, Long sessionId, Long userId, DetectionResult r) {
+        return new ResultExportRow(resultId, sessionId, userId, r.getLetter(), r.getConfidence(),
+                r.getObservationCount(), r.getDetectedAt(), r.getStartedAt(), r.getEndedAt(), r.getUpstreamTimestamp());
+    }
+}
@@ -0,0 +1,193 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ArchivedResults;
+import com.asl.backend.dto.ResultExportRow;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.util.ResultArchiveCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export of detection results as NDJSON or CSV.
+ * Rows come from a server-side cursor (fetch size 1000, read-only projections that never
+ * enter the persistence context) and are written to the response as they are read, so
+ * heap use does not depend on the number of rows exported.
+ */
+@Service
+public class ResultExportService {
+
+    private static final String CSV_HEADER = "result_id,session_id,user_id,letter,confidence,observations," +
+            "detected_at,started_at,ended_at,upstream_timestamp";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        /** Format by name, case-insensitive; IllegalArgumentException for anything else */
+        public static Format of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final DetectionResultRepository resultRepo;
+    private final SessionResultArchiveRepository archiveRepo;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    public ResultExportService(DetectionResultRepository resultRepo, SessionResultArchiveRepository archiveRepo,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.resultRepo = resultRepo;
+        this.archiveRepo = archiveRepo;
+        this.objectMapper = objectMapper;
+        // the cursor only lives inside a transaction
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Write the results detected in [from, to) of one user, or of all users when userId is null.
+     * Rows still in the table come first, then those of archived sessions (decoded one session at a time).
+     */
+    public void export(Long userId, LocalDateTime from, LocalDateTime to, Format format, boolean gzip,
+                       OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        try (RowWriter writer = format == Format.CSV ? new CsvWriter(target) : new NdjsonWriter(target)) {
+            readOnlyTx.executeWithoutResult(tx -> {
+                try (Stream<ResultExportRow> rows = userId != null
+                        ? resultRepo.streamExportForUser(userId, from, to)
+                        : resultRepo.streamExport(from, to)) {
+                    for (ResultExportRow row : (Iterable<ResultExportRow>) rows::iterator) writer.write(row);
+                }
+
+                try (Stream<ArchivedResults> archives = userId != null
+                        ? archiveRepo.streamForUser(userId, from, to)
+                        : archiveRepo.streamAll(from, to)) {
+                    for (ArchivedResults archive : (Iterable<ArchivedResults>) archives::iterator) {
+                        for (DetectionResult r : ResultArchiveCodec.decode(archive.payload())) {
+                            LocalDateTime at = r.getDetectedAt();
+                            if (at == null || at.isBefore(from) || !at.isBefore(to)) continue;
+                            writer.write(ResultArchiveService.toRow(null, archive.sessionId(), archive.userId(), r));
+                        }
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (target instanceof GZIPOutputStream gz) gz.finish();
+    }
+
+    private interface RowWriter extends Closeable {
+        void write(ResultExportRow row);
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+
+        private NdjsonWriter(OutputStream out) throws IOException {
+            json = objectMapper.getFactory().createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultExportRow row) {
+            try {
+                json.writeStartObject();
+                if (row.resultId() != null) json.writeNumberField("resultId", row.resultId());
+                else json.writeNullField("resultId");
+                json.writeNumberField("sessionId", row.sessionId());
+                json.writeNumberField("userId", row.userId());
+                json.writeStringField("letter", row.letter());
+                json.writeNumberField("confidence", row.confidence());
+                json.writeNumberField("observations", row.observations());
+                json.writeStringField("detectedAt", text(row.detectedAt()));
+                json.writeStringField("startedAt", text(row.startedAt()));
+                json.writeStringField("endedAt", text(row.endedAt()));
+                json.writeStringField("upstreamTimestamp", row.upstreamTimestamp());
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer csv;
+        private final StringBuilder line = new StringBuilder(128);
+
+        private CsvWriter(OutputStream out) throws IOException {
+            csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            csv.write(CSV_HEADER);
+            csv.write('\n');
+        }
+
+        @Override
+        public void write(ResultExportRow row) {
+            line.setLength(0);
+            line.append(Objects.toString(row.resultId(), "")).append(',')
+                .append(row.sessionId()).append(',')
+                .append(row.userId()).append(',');
+            csvField(line, row.letter()).append(',')
+                .append(row.confidence()).append(',')
+                .append(row.observations()).append(',')
+                .append(Objects.toString(row.detectedAt(), "")).append(',')
+                .append(Objects.toString(row.startedAt(), "")).append(',')
+                .append(Objects.toString(row.endedAt(), "")).append(',');
+            csvField(line, row.upstreamTimestamp()).append('\n');
+            try {
+                csv.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // flush only: the response stream is closed by the caller
+        @Override
+        public void close() throws IOException {
+            csv.flush();
+        }
+    }
+
+    // RFC 4180 quoting, only when needed
+    private static StringBuilder csvField(StringBuilder line, String value) {
+        if (value == null) return line;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String text(LocalDateTime time) {
+        return time != null ? time.toString() : null;
+    }
+}
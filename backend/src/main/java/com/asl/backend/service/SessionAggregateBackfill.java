@@ -0,0 +1,77 @@
+package com.asl.backend.service;
+
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import com.asl.backend.util.AslAlphabet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes running aggregates for sessions created before they existed.
+ * Works through sessions in id order, one chunk per scheduler tick, and goes idle
+ * once no session is left without aggregates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionAggregateBackfill {
+
+    private final DetectionSessionRepository sessionRepo;
+    private final DetectionResultRepository resultRepo;
+
+    @Value("${detection.aggregates.backfill-chunk-size:200}")
+    private int chunkSize;
+
+    // id of the last session of the previous chunk; the next tick continues after it
+    private long afterId;
+    private int total;
+    private volatile boolean done;
+
+    @Scheduled(initialDelayString = "${detection.aggregates.backfill-delay-ms:10000}",
+               fixedDelayString = "${detection.aggregates.backfill-interval-ms:5000}")
+    public synchronized void run() {
+        if (done) return;
+
+        List<Long> ids = sessionRepo.findIdsMissingAggregates(afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            if (total > 0) log.info("Backfilled aggregates for {} detection sessions", total);
+            done = true;
+            return;
+        }
+
+        backfillChunk(ids);
+        afterId = ids.get(ids.size() - 1);
+        total += ids.size();
+    }
+
+    /** Compute and store aggregates for one chunk of session ids */
+    public void backfillChunk(List<Long> sessionIds) {
+        Map<Long, Integer> masks = new HashMap<>();
+        for (DetectionResultRepository.SessionLetter row : resultRepo.distinctLettersBySession(sessionIds)) {
+            masks.merge(row.getSessionId(), AslAlphabet.bit(row.getLetter()), (a, b) -> a | b);
+        }
+
+        Map<Long, DetectionResultRepository.SessionAggregate> aggregates = new HashMap<>();
+        for (DetectionResultRepository.SessionAggregate row : resultRepo.aggregateBySession(sessionIds)) {
+            aggregates.put(row.getSessionId(), row);
+        }
+
+        for (Long id : sessionIds) {
+            DetectionResultRepository.SessionAggregate a = aggregates.get(id);
+            if (a == null) {
+                sessionRepo.updateAggregates(id, 0L, 0.0, null, null, 0);
+            } else {
+                sessionRepo.updateAggregates(id, a.getCount(), a.getConfidenceSum(),
+                        a.getMinConfidence(), a.getMaxConfidence(), masks.getOrDefault(id, 0));
+            }
+        }
+    }
+}
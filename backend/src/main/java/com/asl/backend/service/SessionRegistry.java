@@ -0,0 +1,52 @@
+package com.asl.backend.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Who has a detection session running, and who is logged in, across backend instances.
+ * The node that starts a session owns it: the session's aggregates, run encoder and
+ * stream subscribers stay in that node's memory, and the registry only records the
+ * user -> session mapping, the owning node and the latest letter.
+ * Selected with {@code detection.registry=memory|postgres}.
+ */
+public interface SessionRegistry {
+
+    /** Id of this backend instance */
+    String nodeId();
+
+    /** Record a session started (and owned) by this node, replacing any previous entry */
+    void register(Long userId, Long sessionId);
+
+    /** Session id of a user's active session on any node, or null */
+    Long sessionOf(Long userId);
+
+    /** Remove a user's entry; returns the session id it held, or null */
+    Long unregister(Long userId);
+
+    /**
+     * Ask the node owning a user's session to stop it and remove the entry.
+     * Returns the session id, or null when the user has no session owned by another node.
+     */
+    Long requestStop(Long userId);
+
+    /** Handler run on this node when another node asks it to stop one of its sessions */
+    void onStopRequested(Consumer<Long> handler);
+
+    /** Latest letter of a user's session; only written when it changes */
+    void updateLatestPrediction(Long userId, String letter);
+
+    /** Latest letter of a user's session on any node, or null */
+    String latestPrediction(Long userId);
+
+    /** Active sessions on all nodes */
+    long activeSessionCount();
+
+    /** A user became present on this node */
+    void userLoggedIn(String email);
+
+    /** A user left this node (logout or expiry); they may still be present on others */
+    void userLoggedOut(String email);
+
+    /** Logged-in users on all nodes, each counted once */
+    long loggedInUserCount();
+}
@@ -0,0 +1,116 @@
+package com.asl.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared poller for the Python workers' latest results.
+ * Each worker exposes one global latest_letter, so it is fetched at a fixed rate into
+ * an in-memory snapshot that every user pinned to (or hashed onto) that worker reads.
+ * Upstream load depends on the number of workers, not on the number of polling users.
+ * Snapshots carry a version that only increases when the result changes. Reads that find
+ * no snapshot (or a stale one for an idle worker) trigger a single-flight fetch.
+ */
+@Service
+@RequiredArgsConstructor
+public class UpstreamResultPoller {
+
+    private final PythonIntegrationService pythonService;
+    private final InferenceWorkerPool workerPool;
+
+    /** Snapshots older than this are refreshed on read */
+    @Value("${python.poll.max-age-ms:2000}")
+    private long maxAgeMs;
+
+    /** Workers without pinned users are polled for this long after their last read */
+    @Value("${python.poll.idle-ms:10000}")
+    private long idleMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Latest result of a worker; {@code version} increases whenever the result changes */
+    public record Snapshot(long version, PythonIntegrationService.PythonResult result, long fetchedAtMillis) {}
+
+    /**
+     * Latest result for a user. Completes immediately from the snapshot when one exists;
+     * only a first read (or a read of a stale, idle worker) waits on the shared fetch.
+     */
+    public CompletableFuture<PythonIntegrationService.PythonResult> latest(Long userId) {
+        return snapshotFor(userId).thenApply(snapshot -> snapshot != null ? snapshot.result() : null);
+    }
+
+    /** Snapshot for a user's worker; completes with null when no worker is available */
+    public CompletableFuture<Snapshot> snapshotFor(Long userId) {
+        return pythonService.resolve(userId).thenCompose(worker -> {
+            if (worker == null) return CompletableFuture.completedFuture(null);
+
+            Entry entry = entries.computeIfAbsent(worker.getUrl(), url -> new Entry());
+            entry.lastReadMillis = System.currentTimeMillis();
+            Snapshot snapshot = entry.snapshot;
+            if (snapshot == null) return refresh(worker, entry);
+            if (System.currentTimeMillis() - snapshot.fetchedAtMillis() > maxAgeMs) refresh(worker, entry);
+            return CompletableFuture.completedFuture(snapshot);
+        });
+    }
+
+    /** Current snapshot of a worker without triggering a fetch, or null */
+    public Snapshot peek(String workerUrl) {
+        Entry entry = entries.get(workerUrl);
+        return entry != null ? entry.snapshot : null;
+    }
+
+    /** Refresh every healthy worker that has pinned users or was read recently */
+    @Scheduled(fixedDelayString = "${python.poll.interval-ms:250}", scheduler = "detectionScheduler")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        for (InferenceWorkerPool.Worker worker : workerPool.getWorkers()) {
+            if (!worker.isHealthy()) continue;
+            Entry entry = entries.get(worker.getUrl());
+            boolean recentlyRead = entry != null && now - entry.lastReadMillis < idleMs;
+            if (worker.getSessions() > 0 || recentlyRead) {
+                refresh(worker, entries.computeIfAbsent(worker.getUrl(), url -> new Entry()));
+            }
+        }
+    }
+
+    // Single flight: concurrent refreshes of one worker share the fetch already in progress
+    private CompletableFuture<Snapshot> refresh(InferenceWorkerPool.Worker worker, Entry entry) {
+        CompletableFuture<Snapshot> promise = new CompletableFuture<>();
+        synchronized (entry) {
+            if (entry.inFlight != null) return entry.inFlight;
+            entry.inFlight = promise;
+        }
+
+        pythonService.fetchResult(worker).whenComplete((result, e) -> {
+            Snapshot next;
+            synchronized (entry) {
+                Snapshot previous = entry.snapshot;
+                long now = System.currentTimeMillis();
+                if (result == null) {
+                    next = previous;
+                } else if (previous != null && Objects.equals(previous.result(), result)) {
+                    next = new Snapshot(previous.version(), result, now);
+                } else {
+                    next = new Snapshot(previous != null ? previous.version() + 1 : 1, result, now);
+                }
+                entry.snapshot = next;
+                entry.inFlight = null;
+            }
+            promise.complete(next);
+        });
+        return promise;
+    }
+
+    private static final class Entry {
+        private volatile Snapshot snapshot;
+        private volatile long lastReadMillis;
+        private CompletableFuture<Snapshot> inFlight;
+    }
+}
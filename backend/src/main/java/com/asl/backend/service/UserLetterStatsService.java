@@ -0,0 +1,120 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ArchivedResults;
+import com.asl.backend.dto.LetterStatsDto;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.UserLetterStats;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.repository.UserLetterStatsRepository;
+import com.asl.backend.util.AslAlphabet;
+import com.asl.backend.util.ResultArchiveCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Maintains every user's lifetime letter statistics (UserLetterStats).
+ * Increments run inside the result writer's transaction under a lock on the user's row,
+ * so batches of concurrent sessions of one user never overwrite each other's counts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserLetterStatsService {
+
+    private final UserLetterStatsRepository statsRepo;
+    private final DetectionResultRepository resultRepo;
+    private final SessionResultArchiveRepository archiveRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Weight of one observation in the recent-confidence moving average */
+    @Value("${stats.letters.ema-alpha:0.1}")
+    private double alpha;
+
+    /** Observations a letter needs before it can be listed among the weakest */
+    @Value("${stats.letters.weakest-min-count:10}")
+    private long weakestMinCount;
+
+    @Value("${stats.letters.weakest-limit:5}")
+    private int weakestLimit;
+
+    /** Seed statistics from existing results and archives the first time the application starts */
+    @PostConstruct
+    public void initialize() {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (statsRepo.count() > 0) return;
+
+                Map<Long, UserLetterStats> seeded = new HashMap<>();
+                try (Stream<ArchivedResults> archives = archiveRepo.streamAll()) {
+                    archives.forEach(archive -> {
+                        UserLetterStats stats = seeded.computeIfAbsent(archive.userId(), UserLetterStats::empty);
+                        for (DetectionResult r : ResultArchiveCodec.decode(archive.payload())) add(stats, r);
+                    });
+                }
+                for (DetectionResultRepository.UserLetterTotal total : resultRepo.totalsByUserAndLetter()) {
+                    int index = AslAlphabet.indexOf(total.getLetter());
+                    if (index < 0) continue;
+                    seeded.computeIfAbsent(total.getUserId(), UserLetterStats::empty)
+                            .add(index, total.getCount(), total.getConfidenceSum(), alpha);
+                }
+
+                if (!seeded.isEmpty()) {
+                    LocalDateTime now = LocalDateTime.now();
+                    seeded.values().forEach(stats -> stats.setUpdatedAt(now));
+                    statsRepo.saveAll(seeded.values());
+                    log.info("Seeded letter statistics of {} users", seeded.size());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Could not seed user letter statistics: {}", e.getMessage());
+        }
+    }
+
+    /** Add a batch of one user's results; call within the transaction that inserts them */
+    public void resultsWritten(Long userId, Collection<DetectionResult> results) {
+        statsRepo.insertEmpty(userId, AslAlphabet.NUM_CLASSES);
+        UserLetterStats stats = statsRepo.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("No letter statistics row for user " + userId));
+        for (DetectionResult r : results) add(stats, r);
+        stats.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /** A user's statistics: one row read, 29 entries computed */
+    @Transactional(readOnly = true)
+    public LetterStatsDto getStats(Long userId) {
+        UserLetterStats stats = statsRepo.findById(userId).orElseGet(() -> UserLetterStats.empty(userId));
+
+        List<LetterStatsDto.Letter> letters = new ArrayList<>(AslAlphabet.NUM_CLASSES);
+        for (int i = 0; i < AslAlphabet.NUM_CLASSES; i++) {
+            long count = stats.getCounts()[i];
+            letters.add(new LetterStatsDto.Letter(AslAlphabet.CLASS_NAMES.get(i), count,
+                    count > 0 ? stats.getConfidenceSums()[i] / count : null,
+                    count > 0 ? stats.getRecentConfidence()[i] : null));
+        }
+
+        List<String> weakest = IntStream.range(0, AslAlphabet.NUM_CLASSES)
+                .filter(i -> stats.getCounts()[i] >= Math.max(1, weakestMinCount))
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> stats.getRecentConfidence()[i]))
+                .limit(weakestLimit)
+                .map(AslAlphabet.CLASS_NAMES::get)
+                .toList();
+        return new LetterStatsDto(letters, weakest);
+    }
+
+    private void add(UserLetterStats stats, DetectionResult r) {
+        int index = AslAlphabet.indexOf(r.getLetter());
+        if (index >= 0) stats.add(index, r.getObservationCount(), r.getConfidenceTotal(), alpha);
+    }
+}
@@ -2,14 +2,15 @@ package com.asl.backend.service;
 
 import com.asl.backend.entity.User;
 import com.asl.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -17,9 +18,21 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
-
-    // Store active users (in-memory for now)
-    private final Set<String> activeUsers = Collections.synchronizedSet(new HashSet<>());
+    private final DetectionMetrics metrics;
+    // Logged-in users, shared by all nodes
+    private final SessionRegistry sessionRegistry;
+    private final PresenceTracker presenceTracker;
+
+    // Comma-separated emails allowed to use admin endpoints (all-users export)
+    @Value("${admin.emails:}")
+    private String adminEmails;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("users.logged.in", sessionRegistry, SessionRegistry::loggedInUserCount)
+                .description("Users currently logged in")
+                .register(metrics.getRegistry());
+    }
 
     // Signup user and encode password
     public User signup(User user) {
@@ -44,14 +57,14 @@ public class UserService {
         if (!passwordEncoder.matches(password, user.getPassword())) return null; // Invalid password
 
         // Add to active users
-        activeUsers.add(email);
+        presenceTracker.touch(email);
 
         return user; // Successful login
     }
 
     // Logout user
     public void logout(String email) {
-        activeUsers.remove(email);
+        presenceTracker.remove(email);
     }
 
     // ✅ Total registered users
@@ -61,7 +74,14 @@ public class UserService {
 
     // ✅ Active logged-in users
     public int getActiveUserCount() {
-        return activeUsers.size();
+        return (int) sessionRegistry.loggedInUserCount();
+    }
+
+    // Admins are configured by email, there is no role column
+    public boolean isAdmin(User user) {
+        return user != null && user.getEmail() != null && Arrays.stream(adminEmails.split(","))
+                .map(String::trim)
+                .anyMatch(user.getEmail()::equalsIgnoreCase);
     }
 
     // Optional: Fetch user by email
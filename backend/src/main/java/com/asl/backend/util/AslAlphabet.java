@@ -0,0 +1,49 @@
+package com.asl.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The model's class labels, in the same order as CLASS_NAMES in aslmodel/src/config.py.
+ * Letters are also packed into 29-bit masks (bit i = class i) for distinct-sign counting.
+ */
+public final class AslAlphabet {
+
+    public static final List<String> CLASS_NAMES = List.of(
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M", "N", "O",
+            "P", "Q", "R", "S", "T", "U", "V", "W", "X", "Y", "Z", "del", "nothing", "space"
+    );
+
+    public static final int NUM_CLASSES = CLASS_NAMES.size();
+
+    private static final Map<String, Integer> INDEX = IntStream.range(0, NUM_CLASSES).boxed()
+            .collect(Collectors.toUnmodifiableMap(CLASS_NAMES::get, Function.identity()));
+
+    private AslAlphabet() {
+    }
+
+    /** Class index of a label, or -1 if it is not one of the model's classes */
+    public static int indexOf(String letter) {
+        Integer index = letter != null ? INDEX.get(letter) : null;
+        return index != null ? index : -1;
+    }
+
+    /** Mask bit for a label (0 for unknown labels) */
+    public static int bit(String letter) {
+        int index = indexOf(letter);
+        return index >= 0 ? 1 << index : 0;
+    }
+
+    /** Labels contained in a mask, in class order */
+    public static List<String> letters(int mask) {
+        List<String> letters = new ArrayList<>(Integer.bitCount(mask));
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            if ((mask & (1 << i)) != 0) letters.add(CLASS_NAMES.get(i));
+        }
+        return letters;
+    }
+}
@@ -0,0 +1,62 @@
+package com.asl.backend.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per key, refilled at {@code ratePerSecond} up to {@code burst} tokens.
+ * Each bucket is kept in its equivalent GCRA form: a single "theoretical arrival time"
+ * (when the bucket would be full again) in an AtomicLong, advanced by one emission interval
+ * per permitted request with a CAS loop. No locks are taken; buckets live in a
+ * ConcurrentHashMap, which only locks a bin while a new key is inserted.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(double ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    /** With an explicit nanosecond clock (tests) */
+    public RateLimiter(double ratePerSecond, int burst, LongSupplier clock) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.clock = clock;
+    }
+
+    /** Take a token for the key: 0 if one was available, otherwise nanoseconds until one is */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long full = bucket.get();
+            long start = full - now < 0 ? now : full;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(full, start + intervalNanos)) return 0;
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they behave like absent ones (a request
+     * racing with the removal can at most get one token more than the burst).
+     */
+    public int evictFull() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
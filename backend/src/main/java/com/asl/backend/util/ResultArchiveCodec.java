@@ -0,0 +1,181 @@
+package com.asl.backend.util;
+
+import com.asl.backend.entity.DetectionResult;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary form of a closed session's detection results (see SessionResultArchive).
+ * <pre>
+ * version:u8 flags:u8 (bit 0 = body deflated)
+ * body: count:varint base:varlong (epoch millis of the first detectedAt, UTC)
+ *   per row:
+ *     head:u8      bits 0-4 class index (31 = label follows), bit 5 run fields, bit 6 no detectedAt
+ *     [label]      varint length + UTF-8, only for labels outside the alphabet
+ *     confidence:u16   quantized to 1/65535
+ *     [detectedAt] zigzag varlong millis since the previous row's detectedAt (the base for the first)
+ *     [run]        observations:varint min:u16 max:u16 startedAt:zigzag varlong (from detectedAt)
+ *                  duration:varlong (endedAt - startedAt)
+ * </pre>
+ * Ids and upstream timestamps are not kept; confidences come back within 1/65535.
+ */
+public final class ResultArchiveCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int FLAG_DEFLATE = 1;
+    private static final int LABEL_FOLLOWS = 31;
+    private static final int HEAD_RUN = 1 << 5;
+    private static final int HEAD_NO_TIME = 1 << 6;
+
+    private ResultArchiveCodec() {
+    }
+
+    public static byte[] encode(List<DetectionResult> results, boolean deflate) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + results.size() * 8);
+            bytes.write(VERSION);
+            bytes.write(deflate ? FLAG_DEFLATE : 0);
+
+            OutputStream body = deflate ? new DeflaterOutputStream(bytes) : bytes;
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body));
+
+            long previous = results.stream().map(DetectionResult::getDetectedAt)
+                    .filter(t -> t != null).findFirst().map(ResultArchiveCodec::millis).orElse(0L);
+            writeVarLong(out, results.size());
+            writeVarLong(out, zigZag(previous));
+
+            for (DetectionResult r : results) {
+                int index = AslAlphabet.indexOf(r.getLetter());
+                boolean timed = r.getDetectedAt() != null;
+                boolean run = timed && r.getObservations() != null && r.getStartedAt() != null && r.getEndedAt() != null;
+
+                int head = index >= 0 && index < LABEL_FOLLOWS ? index : LABEL_FOLLOWS;
+                if (run) head |= HEAD_RUN;
+                if (!timed) head |= HEAD_NO_TIME;
+                out.writeByte(head);
+                if ((head & 31) == LABEL_FOLLOWS) {
+                    byte[] label = r.getLetter().getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, label.length);
+                    out.write(label);
+                }
+                out.writeShort(quantize(r.getConfidence()));
+
+                if (timed) {
+                    long at = millis(r.getDetectedAt());
+                    writeVarLong(out, zigZag(at - previous));
+                    previous = at;
+                }
+                if (run) {
+                    writeVarLong(out, r.getObservations());
+                    out.writeShort(quantize(r.getMinConfidence() != null ? r.getMinConfidence() : r.getConfidence()));
+                    out.writeShort(quantize(r.getMaxConfidence() != null ? r.getMaxConfidence() : r.getConfidence()));
+                    long started = millis(r.getStartedAt());
+                    writeVarLong(out, zigZag(started - previous));
+                    writeVarLong(out, Math.max(0, millis(r.getEndedAt()) - started));
+                }
+            }
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Rows of an archive, without ids or session */
+    public static List<DetectionResult> decode(byte[] archive) {
+        try {
+            if (archive.length < 2 || archive[0] != VERSION) {
+                throw new IllegalArgumentException("Unsupported result archive version " + (archive.length > 0 ? archive[0] : -1));
+            }
+            InputStream body = new ByteArrayInputStream(archive, 2, archive.length - 2);
+            if ((archive[1] & FLAG_DEFLATE) != 0) body = new InflaterInputStream(body);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+
+            int count = (int) readVarLong(in);
+            long previous = unZigZag(readVarLong(in));
+            List<DetectionResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int head = in.readUnsignedByte();
+                DetectionResult r = new DetectionResult();
+                if ((head & 31) == LABEL_FOLLOWS) {
+                    byte[] label = new byte[(int) readVarLong(in)];
+                    in.readFully(label);
+                    r.setLetter(new String(label, StandardCharsets.UTF_8));
+                } else {
+                    r.setLetter(AslAlphabet.CLASS_NAMES.get(head & 31));
+                }
+                r.setConfidence(dequantize(in.readUnsignedShort()));
+
+                if ((head & HEAD_NO_TIME) == 0) {
+                    previous += unZigZag(readVarLong(in));
+                    r.setDetectedAt(time(previous));
+                }
+                if ((head & HEAD_RUN) != 0) {
+                    int observations = (int) readVarLong(in);
+                    r.setObservations(observations);
+                    r.setConfidenceSum(r.getConfidence() * observations);
+                    r.setMinConfidence(dequantize(in.readUnsignedShort()));
+                    r.setMaxConfidence(dequantize(in.readUnsignedShort()));
+                    long started = previous + unZigZag(readVarLong(in));
+                    r.setStartedAt(time(started));
+                    r.setEndedAt(time(started + readVarLong(in)));
+                }
+                results.add(r);
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int quantize(double confidence) {
+        return (int) Math.round(Math.min(1.0, Math.max(0.0, confidence)) * 65535);
+    }
+
+    private static double dequantize(int value) {
+        return value / 65535.0;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime time(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in result archive");
+    }
+}
@@ -0,0 +1,163 @@
+package com.asl.backend.config;
+
+import com.asl.backend.entity.User;
+import com.asl.backend.service.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Two in-memory H2 databases stand in for a Postgres primary and its replica */
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites();
+    private final MockHttpSession session = new MockHttpSession();
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaRoutingDataSource router;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(readYourWrites, "stickyMs", 5000L);
+        ReflectionTestUtils.setField(readYourWrites, "clock", (LongSupplier) now::get);
+        User user = new User();
+        user.setId(7L);
+        session.setAttribute("user", user);
+
+        JdbcDataSource primary = h2();
+        JdbcDataSource replica = h2();
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+        primaryJdbc.update("INSERT INTO marker VALUES ('primary')");
+        replicaJdbc.execute("CREATE TABLE marker (name VARCHAR(20))");
+        replicaJdbc.update("INSERT INTO marker VALUES ('replica')");
+        replicaJdbc.execute("CREATE TABLE replica_status (lag_ms BIGINT)");
+        replicaJdbc.update("INSERT INTO replica_status VALUES (0)");
+
+        router = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), 1000,
+                "SELECT lag_ms FROM replica_status", readYourWrites::pinnedToPrimary, new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(router);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        primaryJdbc.execute("SHUTDOWN");
+        replicaJdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToACheckedReplica() {
+        assertEquals("primary", readOnly(), "a replica is not used before its first lag check");
+
+        router.checkLag();
+        assertEquals("replica", readOnly());
+        assertEquals("primary", tx.execute(status -> marker()));
+        assertEquals("primary", marker(), "no transaction, no read-only flag");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasFallBackToThePrimary() {
+        replicaJdbc.update("UPDATE replica_status SET lag_ms = 5000");
+        router.checkLag();
+        assertEquals("primary", readOnly());
+
+        replicaJdbc.update("UPDATE replica_status SET lag_ms = 200");
+        router.checkLag();
+        assertEquals("replica", readOnly());
+
+        replicaJdbc.execute("DROP TABLE replica_status");
+        router.checkLag();
+        assertEquals("primary", readOnly());
+    }
+
+    @Test
+    void readsThatMustSeeOwnWritesStayOnThePrimary() throws Exception {
+        router.checkLag();
+        assertEquals("primary", readYourWrites.onPrimary(this::readOnly));
+        assertEquals("replica", readOnly());
+
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(readYourWrites);
+        MockHttpServletRequest post = request("POST");
+        interceptor.preHandle(post, new MockHttpServletResponse(), null);
+        assertEquals("primary", readOnly(), "reads of a write request");
+        interceptor.afterCompletion(post, new MockHttpServletResponse(), null, null);
+
+        now.addAndGet(TimeUnit.SECONDS.toMillis(4));
+        interceptor.preHandle(request("GET"), new MockHttpServletResponse(), null);
+        assertEquals("primary", readOnly(), "the same user right after their write");
+
+        // the write time travels with the session, so another node serving it pins its reads too
+        ReadYourWrites otherNode = new ReadYourWrites();
+        ReflectionTestUtils.setField(otherNode, "stickyMs", 5000L);
+        ReflectionTestUtils.setField(otherNode, "clock", (LongSupplier) now::get);
+        new ReadYourWritesInterceptor(otherNode).preHandle(request("GET"), new MockHttpServletResponse(), null);
+        assertEquals("primary", readOnly(), "the same session on another node");
+
+        MockHttpServletRequest otherUser = new MockHttpServletRequest("GET", "/api/detection/history");
+        otherUser.getSession().setAttribute("user", new User());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(otherUser));
+        interceptor.preHandle(otherUser, new MockHttpServletResponse(), null);
+        assertEquals("replica", readOnly(), "another user's session");
+
+        now.addAndGet(TimeUnit.SECONDS.toMillis(2));
+        interceptor.preHandle(request("GET"), new MockHttpServletResponse(), null);
+        assertEquals("replica", readOnly());
+    }
+
+    private MockHttpServletRequest request(String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/detection/history");
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    private String readOnly() {
+        return readOnlyTx.execute(status -> marker());
+    }
+
+    private String marker() {
+        return jdbc.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
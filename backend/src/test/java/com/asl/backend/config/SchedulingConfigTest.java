@@ -0,0 +1,61 @@
+package com.asl.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulingConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskSchedulingAutoConfiguration.class))
+            .withUserConfiguration(SchedulingConfig.class, Jobs.class)
+            .withPropertyValues("spring.task.scheduling.pool.size=1", "detection.scheduler.pool-size=1");
+
+    @Test
+    void detectionJobsKeepRunningWhileTheDefaultSchedulerIsBlocked() {
+        runner.run(context -> {
+            Jobs jobs = context.getBean(Jobs.class);
+            assertTrue(jobs.blocking.await(5, TimeUnit.SECONDS));
+            // the only default thread stays blocked; the detection job still runs, on its own threads
+            assertTrue(jobs.detectionRuns.await(5, TimeUnit.SECONDS));
+            assertTrue(jobs.detectionThread.startsWith("detection-scheduling-"), jobs.detectionThread);
+            assertTrue(jobs.blockingThread.startsWith("scheduling-"), jobs.blockingThread);
+            jobs.release.countDown();
+        });
+    }
+
+    @Configuration
+    @EnableScheduling
+    static class Jobs {
+        final CountDownLatch blocking = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch detectionRuns = new CountDownLatch(3);
+        volatile String blockingThread;
+        volatile String detectionThread;
+
+        @Scheduled(fixedDelay = 10)
+        void database() throws InterruptedException {
+            blockingThread = Thread.currentThread().getName();
+            blocking.countDown();
+            release.await(10, TimeUnit.SECONDS);
+        }
+
+        @Scheduled(fixedDelay = 10, scheduler = "detectionScheduler")
+        void poll() throws InterruptedException {
+            // starts only once the blocking job holds the default scheduler
+            if (blocking.await(5, TimeUnit.SECONDS)) {
+                detectionThread = Thread.currentThread().getName();
+                detectionRuns.countDown();
+            }
+        }
+    }
+}
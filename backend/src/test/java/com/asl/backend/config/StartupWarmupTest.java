@@ -0,0 +1,20 @@
+package com.asl.backend.config;
+
+import com.asl.backend.inference.LandmarkClassifier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+class StartupWarmupTest {
+
+    @Test
+    void runsWithoutDatabaseOrModel() {
+        StartupWarmup warmup = new StartupWarmup(new ObjectMapper().findAndRegisterModules(), new LandmarkClassifier());
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", 2000);
+
+        assertDoesNotThrow(() -> warmup.run(null));
+    }
+}
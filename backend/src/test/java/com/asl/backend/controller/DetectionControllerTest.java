@@ -0,0 +1,92 @@
+package com.asl.backend.controller;
+
+import com.asl.backend.dto.DetectionSessionDto;
+import com.asl.backend.entity.User;
+import com.asl.backend.inference.LandmarkClassifier;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import com.asl.backend.repository.UserRepository;
+import com.asl.backend.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DetectionControllerTest {
+
+    private final DetectionSessionRepository sessionRepo = mock(DetectionSessionRepository.class);
+    private final DetectionService detectionService = new DetectionService(sessionRepo,
+            mock(DetectionResultRepository.class), mock(UserRepository.class), mock(PythonIntegrationService.class),
+            mock(UpstreamResultPoller.class), mock(PredictionStreamService.class), mock(DetectionResultWriter.class),
+            mock(DetectionRunEncoder.class), mock(DetectionTranscriber.class), mock(PlatformRollupService.class),
+            mock(TransactionTemplate.class), mock(LandmarkClassifier.class), mock(DetectionMetrics.class),
+            mock(SessionRegistry.class), new DetectionJournal());
+    private final DetectionController controller = new DetectionController(detectionService,
+            mock(PredictionStreamService.class), mock(LandmarkIngestService.class), mock(ResultExportService.class),
+            mock(ResultArchiveService.class), mock(UserService.class));
+
+    private final MockHttpSession session = new MockHttpSession();
+
+    @BeforeEach
+    void setUp() {
+        session.setAttribute("user", User.builder().id(7L).build());
+    }
+
+    @Test
+    void nextCursorResumesAfterTheLastRowOfThePage() {
+        // whole minute and nanoseconds: both change how LocalDateTime prints
+        DetectionSessionDto first = row(30L, LocalDateTime.of(2026, 10, 17, 12, 5, 0, 123_456_789));
+        DetectionSessionDto second = row(29L, LocalDateTime.of(2026, 10, 17, 12, 0));
+        DetectionSessionDto third = row(28L, LocalDateTime.of(2026, 10, 17, 11, 0, 30));
+        when(sessionRepo.findHistory(7L, PageRequest.of(0, 3))).thenReturn(List.of(first, second, third));
+
+        Map<String, Object> page = body(controller.getSessionHistory(1, 2, "", session));
+        assertEquals(List.of(first, second), page.get("sessions"));
+        assertEquals(true, page.get("hasMore"));
+
+        String cursor = (String) page.get("nextCursor");
+        when(sessionRepo.findHistoryAfter(7L, second.getStartTime(), 29L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(third));
+        Map<String, Object> next = body(controller.getSessionHistory(1, 2, cursor, session));
+        assertEquals(List.of(third), next.get("sessions"));
+        assertEquals(false, next.get("hasMore"));
+        assertNull(next.get("nextCursor"));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : List.of("not*base64", encode("no separator"), encode("2026-13-45T00:00|29"),
+                encode("2026-10-17T12:00|x"), encode("2026-10-17T12:00|29|1"))) {
+            ResponseEntity<?> response = controller.getSessionHistory(1, 10, cursor, session);
+            assertEquals(400, response.getStatusCode().value(), cursor);
+            assertEquals(Map.of("error", "Invalid cursor"), response.getBody());
+        }
+        verify(sessionRepo, never()).findHistoryAfter(anyLong(), any(), anyLong(), any());
+    }
+
+    private static DetectionSessionDto row(Long id, LocalDateTime startTime) {
+        return new DetectionSessionDto(id, startTime, startTime.plusMinutes(1), 0.9, 10, 3, "stopped", "live", "");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(ResponseEntity<?> response) {
+        assertEquals(200, response.getStatusCode().value());
+        return (Map<String, Object>) response.getBody();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
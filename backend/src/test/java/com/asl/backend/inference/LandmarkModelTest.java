@@ -0,0 +1,91 @@
+package com.asl.backend.inference;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Parity of the Java forward pass with reference outputs written by
+ * aslmodel/src/export_weights.py. The bundled tiny_model fixture is a random
+ * 63-32-16-29 network in the export format, with outputs from a float64 reference
+ * pass (regenerate with aslmodel/src/make_test_model.py). The real exported model is checked too when it exists in aslmodel/models.
+ */
+class LandmarkModelTest {
+
+    private static final float TOLERANCE = 1e-5f;
+
+    @Test
+    void matchesReferenceOutputsOfBundledModel() throws IOException {
+        try (InputStream model = resource("tiny_model.bin"); InputStream reference = resource("tiny_model_reference.bin")) {
+            assertParity(LandmarkModel.load(model), reference);
+        }
+    }
+
+    @Test
+    void matchesReferenceOutputsOfExportedModel() throws IOException {
+        Path model = Path.of("../aslmodel/models/landmark_model.bin");
+        Path reference = Path.of("../aslmodel/models/landmark_model_reference.bin");
+        assumeTrue(Files.exists(model) && Files.exists(reference), "no exported model with reference outputs");
+
+        try (InputStream m = Files.newInputStream(model); InputStream r = Files.newInputStream(reference)) {
+            assertParity(LandmarkModel.load(m), r);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotModels() {
+        InputStream garbage = new java.io.ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> LandmarkModel.load(garbage));
+    }
+
+    private static void assertParity(LandmarkModel model, InputStream referenceStream) throws IOException {
+        DataInputStream in = new DataInputStream(referenceStream);
+        assertEquals(0x524C5341, Integer.reverseBytes(in.readInt()), "reference magic");
+        in.readInt(); // version
+        int count = Integer.reverseBytes(in.readInt());
+        int inputDim = Integer.reverseBytes(in.readInt());
+        int classes = Integer.reverseBytes(in.readInt());
+        assertEquals(model.getInputDim(), inputDim);
+        assertEquals(model.getNumClasses(), classes);
+
+        float[] inputs = floats(in, count * inputDim);
+        float[] expected = floats(in, count * classes);
+
+        LandmarkModel.Workspace ws = model.newWorkspace();
+        float[] x = new float[inputDim];
+        float[] probabilities = new float[classes];
+        for (int n = 0; n < count; n++) {
+            System.arraycopy(inputs, n * inputDim, x, 0, inputDim);
+            int best = model.predict(x, probabilities, ws);
+
+            int expectedBest = 0;
+            for (int j = 0; j < classes; j++) {
+                float e = expected[n * classes + j];
+                assertEquals(e, probabilities[j], TOLERANCE, "sample " + n + ", class " + j);
+                if (e > expected[n * classes + expectedBest]) expectedBest = j;
+            }
+            assertEquals(expectedBest, best, "argmax of sample " + n);
+        }
+    }
+
+    private static float[] floats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[count];
+        ByteBuffer.wrap(in.readNBytes(count * Float.BYTES)).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = LandmarkModelTest.class.getResourceAsStream("/inference/" + name);
+        assertNotNull(in, name);
+        return in;
+    }
+}
@@ -0,0 +1,103 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ArchivedResults;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.util.ResultArchiveCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DetectionAnalyticsServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 1, 4, 0);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SessionResultArchiveRepository archiveRepo = mock(SessionResultArchiveRepository.class);
+    private final DetectionAnalyticsService service = new DetectionAnalyticsService(jdbcTemplate, archiveRepo,
+            mock(PlatformTransactionManager.class), new ObjectMapper());
+
+    @Test
+    void archivedSessionsAreMergedIntoTheBucketsOfTheirResults() throws Exception {
+        // rows still in the table: one bucket at 02:00, 4 signs of one session
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getTimestamp("bucket")).thenReturn(Timestamp.valueOf(FROM.plusHours(2)));
+        when(rs.getLong("signs")).thenReturn(4L);
+        when(rs.getDouble("confidence_sum")).thenReturn(3.6);
+        when(rs.getLong("sessions")).thenReturn(1L);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        when(archiveRepo.streamAll(FROM, TO)).thenReturn(Stream.of(
+                archive(10L, result(FROM.plusMinutes(30), 0.5, 2), result(FROM.plusMinutes(40), 1.0, 1),
+                        result(FROM.plusHours(2).plusMinutes(5), 0.8, 1)),
+                archive(11L, result(FROM.plusMinutes(50), 1.0, 1),
+                        result(FROM.minusMinutes(1), 1.0, 5))));
+
+        JsonNode buckets = timeseries(Duration.ofHours(1)).get("buckets");
+
+        assertEquals(2, buckets.size());
+        JsonNode first = buckets.get(0);
+        assertEquals("2025-01-01T00:00", first.get("start").asText());
+        assertEquals(4, first.get("signs").asLong(), "the result before the range is left out");
+        assertEquals(3.0 / 4, first.get("averageConfidence").asDouble(), 1e-3);
+        assertEquals(2, first.get("sessions").asLong());
+
+        JsonNode merged = buckets.get(1);
+        assertEquals("2025-01-01T02:00", merged.get("start").asText());
+        assertEquals(5, merged.get("signs").asLong());
+        assertEquals((3.6 + 0.8) / 5, merged.get("averageConfidence").asDouble(), 1e-3);
+        assertEquals(2, merged.get("sessions").asLong());
+    }
+
+    @Test
+    void rangesOlderThanTheArchiveCutOffAreAccepted() {
+        ReflectionTestUtils.setField(service, "maxBuckets", 10_000L);
+        LocalDateTime end = LocalDateTime.now();
+        assertDoesNotThrow(() -> service.validateRange(end.minusDays(30), end, Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class, () -> service.validateRange(end, end, Duration.ofHours(1)));
+    }
+
+    private JsonNode timeseries(Duration bucket) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeTimeseries(FROM, TO, bucket, out);
+        return new ObjectMapper().readTree(out.toByteArray());
+    }
+
+    private static ArchivedResults archive(Long sessionId, DetectionResult... results) {
+        return new ArchivedResults(sessionId, 7L, ResultArchiveCodec.encode(List.of(results), true));
+    }
+
+    private static DetectionResult result(LocalDateTime at, double confidence, int observations) {
+        DetectionResult r = new DetectionResult();
+        r.setLetter("A");
+        r.setConfidence(confidence);
+        r.setDetectedAt(at);
+        r.setStartedAt(at);
+        r.setEndedAt(at.plusSeconds(observations));
+        r.setObservations(observations);
+        r.setConfidenceSum(confidence * observations);
+        return r;
+    }
+}
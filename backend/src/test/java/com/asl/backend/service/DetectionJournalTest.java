@@ -0,0 +1,149 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectionJournalTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 1, 5, 10, 30, 15, 123_000_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatThePreviousProcessWrote() throws IOException {
+        DetectionJournal before = journal();
+        DetectionSession session = session(10L, 7L);
+        long started = before.sessionStarted(session);
+        long a = before.observation(session, "A", 0.9, "2025-01-05T10:30:15.123456", AT);
+        before.observation(session, "B", 0.8, null, AT.plusSeconds(1));
+        before.observation(session, "C", 0.7, "t", AT.plusSeconds(2));
+        before.observation(session, "not-a-class", 0.7, "t", AT.plusSeconds(3));
+        before.sessionStopped(session);
+
+        // no close(): the next process only finds the mapped files
+        DetectionJournal after = journal();
+        List<DetectionJournal.Record> records = after.readRecovered();
+
+        assertEquals(5, records.size(), "labels outside the alphabet are not journaled");
+        assertEquals(DetectionJournal.SESSION_STARTED, records.get(0).type());
+        assertEquals(started, records.get(0).seq());
+        DetectionJournal.Record first = records.get(1);
+        assertEquals(a, first.seq());
+        assertEquals(DetectionJournal.OBSERVATION, first.type());
+        assertEquals(10L, first.sessionId());
+        assertEquals(7L, first.userId());
+        assertEquals("A", first.letter());
+        assertEquals(0.9, first.confidence());
+        assertEquals(AT, first.at());
+        assertEquals("2025-01-05T10:30:15.123456", first.upstreamTimestamp());
+        assertNull(records.get(2).upstreamTimestamp());
+        assertEquals(DetectionJournal.SESSION_STOPPED, records.get(4).type());
+        assertTrue(after.nextSeq() > records.get(4).seq(), "new records come after the recovered ones");
+
+        after.discardRecovered();
+        assertTrue(journal().readRecovered().isEmpty());
+    }
+
+    @Test
+    void skipsTornRecords() throws IOException {
+        DetectionJournal before = journal();
+        DetectionSession session = session(10L, 7L);
+        for (int i = 0; i < 3; i++) before.observation(session, "A", 0.9, "t" + i, AT);
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(DetectionJournal.RECORD_SIZE + 40); // confidence of the second record
+            file.writeLong(42);
+        }
+
+        List<DetectionJournal.Record> records = journal().readRecovered();
+        assertEquals(List.of("t0", "t2"), records.stream().map(DetectionJournal.Record::upstreamTimestamp).toList());
+    }
+
+    @Test
+    void deletesSegmentsBeforeTheDrainedPosition() throws IOException {
+        DetectionJournal journal = journal();
+        DetectionSession session = session(10L, 7L);
+        long first = 0;
+        for (int i = 0; i < 10; i++) {
+            long seq = journal.observation(session, "A", 0.9, null, AT);
+            if (i == 0) first = seq;
+        }
+        assertEquals(3, segmentFiles());
+
+        // records 0-7 fill the first two segments; record 8 is still needed
+        assertEquals(2, journal.truncateBefore(first + 8));
+        assertEquals(1, segmentFiles());
+        assertEquals(0, journal.truncateBefore(first + 8));
+
+        journal.preallocate();
+        assertEquals(2, segmentFiles());
+    }
+
+    @Test
+    void concurrentAppendsGetDistinctSlots() throws Exception {
+        DetectionJournal before = journal(256);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            DetectionSession session = session(t, 100L + t);
+            pool.execute(() -> {
+                for (int i = 0; i < 500; i++) before.observation(session, "A", i / 500.0, Integer.toString(i), AT);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<DetectionJournal.Record> records = journal(256).readRecovered();
+        assertEquals(4000, records.size());
+        assertEquals(4000, records.stream().mapToLong(DetectionJournal.Record::seq).distinct().count());
+        for (int t = 0; t < 8; t++) {
+            long session = t;
+            assertEquals(500, records.stream().filter(r -> r.sessionId() == session).count());
+        }
+    }
+
+    private DetectionJournal journal() throws IOException {
+        return journal(4);
+    }
+
+    private DetectionJournal journal(int segmentRecords) throws IOException {
+        DetectionJournal journal = new DetectionJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentRecords", segmentRecords);
+        journal.open();
+        return journal;
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static DetectionSession session(long id, long userId) {
+        User user = new User();
+        user.setId(userId);
+        return DetectionSession.builder().id(id).user(user).build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.entity.User;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.DetectionSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DetectionResultWriterTest {
+
+    private final DetectionResultRepository resultRepo = mock(DetectionResultRepository.class);
+    private final DetectionSessionRepository sessionRepo = mock(DetectionSessionRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final DetectionResultWriter writer = new DetectionResultWriter(resultRepo, sessionRepo,
+            mock(PlatformRollupService.class), mock(UserLetterStatsService.class), mock(JdbcTemplate.class),
+            transactionTemplate, new DetectionMetrics(new SimpleMeterRegistry()));
+
+    private final DetectionSession session = DetectionSession.builder()
+            .id(7L).user(User.builder().id(3L).build()).build();
+    // copies of every batch passed to saveAll, in call order
+    private final List<List<String>> saved = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 50);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        doAnswer(runInTransaction()).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(inv -> {
+            List<DetectionResult> batch = inv.getArgument(0);
+            saved.add(batch.stream().map(DetectionResult::getLetter).toList());
+            return batch;
+        }).when(resultRepo).saveAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void failedBatchIsRetriedAheadOfNewerResults() {
+        doThrow(new IllegalStateException("db down")).doAnswer(runInTransaction()).when(transactionTemplate)
+                .executeWithoutResult(any());
+        writer.enqueue(result("A", 1));
+        writer.enqueue(result("B", 2));
+
+        assertThrows(IllegalStateException.class, () -> writer.flush(7L));
+        assertEquals(1, writer.pendingFrom(), "a failed batch keeps its journal position");
+
+        writer.enqueue(result("C", 3));
+        writer.flush(7L);
+
+        assertEquals(List.of(List.of("A", "B", "C")), saved);
+        verify(sessionRepo).updateJournalSeq(7L, 3L);
+        assertEquals(Long.MAX_VALUE, writer.pendingFrom());
+    }
+
+    @Test
+    void flushWaitsForTheBatchInFlight() throws Exception {
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 2);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            List<DetectionResult> batch = inv.getArgument(0);
+            if (writing.getCount() > 0) {
+                writing.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            }
+            saved.add(batch.stream().map(DetectionResult::getLetter).toList());
+            return batch;
+        }).when(resultRepo).saveAll(anyList());
+
+        writer.enqueue(result("A", 1));
+        writer.enqueue(result("B", 2)); // full batch, written by the background flusher
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertEquals(1, writer.pendingFrom(), "the batch in flight still holds the journal");
+        writer.enqueue(result("C", 3));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> writer.flush(7L));
+        assertThrows(TimeoutException.class, () -> flush.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of("A", "B"), List.of("C")), saved);
+        assertEquals(Long.MAX_VALUE, writer.pendingFrom());
+    }
+
+    @Test
+    void flushExpiredWritesOnlyBuffersOlderThanTheInterval() {
+        writer.enqueue(result("A", 0));
+        writer.flushExpired();
+        assertTrue(saved.isEmpty());
+
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 0L);
+        writer.flushExpired();
+        assertEquals(List.of(List.of("A")), saved);
+
+        writer.flushExpired();
+        assertEquals(1, saved.size(), "nothing left to write");
+    }
+
+    @Test
+    void pendingFromIsTheOldestJournaledResultBuffered() {
+        assertEquals(Long.MAX_VALUE, writer.pendingFrom());
+
+        writer.enqueue(result("A", 0)); // not journaled
+        assertEquals(Long.MAX_VALUE, writer.pendingFrom());
+        writer.enqueue(result("B", 5));
+        writer.enqueue(result("C", 9));
+        DetectionSession other = DetectionSession.builder().id(8L).user(session.getUser()).build();
+        writer.enqueue(DetectionResult.builder().letter("D").session(other)
+                .journalFirstSeq(4).journalLastSeq(4).build());
+        assertEquals(4, writer.pendingFrom());
+
+        writer.flush(8L);
+        assertEquals(5, writer.pendingFrom());
+        writer.flush(7L);
+        assertEquals(Long.MAX_VALUE, writer.pendingFrom());
+    }
+
+    private static Answer<Void> runInTransaction() {
+        return inv -> {
+            Consumer<TransactionStatus> work = inv.getArgument(0);
+            work.accept(null);
+            return null;
+        };
+    }
+
+    private DetectionResult result(String letter, long journalSeq) {
+        return DetectionResult.builder().letter(letter).session(session)
+                .journalFirstSeq(journalSeq).journalLastSeq(journalSeq).build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.DetectionSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DetectionRunEncoderTest {
+
+    private final DetectionResultWriter writer = mock(DetectionResultWriter.class);
+    private final DetectionRunEncoder encoder = new DetectionRunEncoder(writer, new DetectionJournal());
+
+    @Test
+    void foldsRepeatedLettersIntoOneRunPerLetter() {
+        DetectionSession session = DetectionSession.builder().id(7L).build();
+
+        encoder.observe(session, "A", 0.8, "t1");
+        assertFalse(encoder.observe(session, "A", 0.8, "t1")); // same upstream sample
+        encoder.observe(session, "A", 0.9, "t2");
+        encoder.observe(session, "A", 1.0, "t3");
+        encoder.observe(session, "B", 0.7, "t4");
+        encoder.close(7L);
+
+        ArgumentCaptor<DetectionResult> rows = ArgumentCaptor.forClass(DetectionResult.class);
+        verify(writer, times(2)).enqueue(rows.capture());
+        List<DetectionResult> written = rows.getAllValues();
+
+        DetectionResult a = written.get(0);
+        assertEquals("A", a.getLetter());
+        assertEquals(3, a.getObservationCount());
+        assertEquals(2.7, a.getConfidenceTotal(), 1e-9);
+        assertEquals(0.9, a.getConfidence(), 1e-9);
+        assertEquals(0.8, a.getMinConfidence(), 1e-9);
+        assertEquals(1.0, a.getMaxConfidence(), 1e-9);
+        // a run is timestamped by its first observation
+        assertEquals("t1", a.getUpstreamTimestamp());
+        assertEquals(a.getStartedAt(), a.getDetectedAt());
+
+        DetectionResult b = written.get(1);
+        assertEquals("B", b.getLetter());
+        assertEquals(1, b.getObservationCount());
+        assertEquals("t4", b.getUpstreamTimestamp());
+
+        // running session aggregates match the stored rows
+        assertEquals(4, session.getTotalPredictions());
+        assertEquals(3.4 / 4, session.getAverageConfidence(), 1e-9);
+        assertEquals(2, session.getUniqueSigns());
+        assertEquals(0.7, session.getMinConfidence(), 1e-9);
+    }
+
+    @Test
+    void framesWithinOneSecondAreSeparateObservations() {
+        DetectionSession session = DetectionSession.builder().id(7L).build();
+
+        assertTrue(encoder.observe(session, "A", 0.8, "2026-10-17T12:00:00.033"));
+        assertFalse(encoder.observe(session, "A", 0.8, "2026-10-17T12:00:00.033"));
+        assertTrue(encoder.observe(session, "A", 0.8, "2026-10-17T12:00:00.283"));
+        assertTrue(encoder.observe(session, "A", 0.8, "2026-10-17T12:00:00.533"));
+        encoder.close(7L);
+
+        ArgumentCaptor<DetectionResult> rows = ArgumentCaptor.forClass(DetectionResult.class);
+        verify(writer).enqueue(rows.capture());
+        assertEquals(3, rows.getValue().getObservationCount());
+        assertEquals(3, session.getTotalPredictions());
+    }
+
+    @Test
+    void pendingFromIsTheFirstJournaledObservationOfTheOpenRun(@TempDir Path dir) throws IOException {
+        DetectionJournal journal = new DetectionJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentRecords", 64);
+        journal.open();
+        DetectionRunEncoder journaled = new DetectionRunEncoder(writer, journal);
+        DetectionSession session = DetectionSession.builder().id(7L).build();
+
+        assertEquals(Long.MAX_VALUE, journaled.pendingFrom());
+        long first = journal.nextSeq();
+        journaled.observe(session, "A", 0.8, "t1");
+        journaled.observe(session, "A", 0.9, "t2");
+        assertEquals(first, journaled.pendingFrom());
+
+        journaled.observe(session, "B", 0.9, "t3");
+        assertEquals(first + 2, journaled.pendingFrom());
+        ArgumentCaptor<DetectionResult> closed = ArgumentCaptor.forClass(DetectionResult.class);
+        verify(writer).enqueue(closed.capture());
+        assertEquals(first, closed.getValue().getJournalFirstSeq());
+        assertEquals(first + 1, closed.getValue().getJournalLastSeq());
+
+        journaled.close(7L);
+        assertEquals(Long.MAX_VALUE, journaled.pendingFrom());
+    }
+}
@@ -0,0 +1,153 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.repository.DetectionSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DetectionTranscriberTest {
+
+    private final DetectionSessionRepository sessionRepo = mock(DetectionSessionRepository.class);
+    private final StringBuilder stored = new StringBuilder();
+    private DetectionTranscriber transcriber;
+
+    @BeforeEach
+    void setUp() {
+        // apply edits like the UPDATE in appendTranscript
+        when(sessionRepo.appendTranscript(anyLong(), anyInt(), anyString())).thenAnswer(inv -> {
+            int deleted = inv.getArgument(1);
+            stored.setLength(Math.max(stored.length() - deleted, 0));
+            stored.append((String) inv.getArgument(2));
+            return 1;
+        });
+
+        transcriber = new DetectionTranscriber(sessionRepo, new DetectionMetrics(new SimpleMeterRegistry()));
+        // three observations in a row
+        ReflectionTestUtils.setField(transcriber, "holdMs", 750L);
+        ReflectionTestUtils.setField(transcriber, "sampleIntervalMs", 250L);
+        ReflectionTestUtils.setField(transcriber, "minConfidence", 0.8);
+        transcriber.init();
+    }
+
+    @Test
+    void commitsStableLettersOncePerRun() {
+        sign("H", 3);
+        sign("H", 4);          // held longer: still one H
+        sign("I", 2);          // not stable yet
+        sign("E", 1);
+        sign("I", 3);
+        sign("space", 3);
+        sign("nothing", 3);    // ends the run so the next I counts again
+        sign("I", 3);
+        sign("nothing", 3);
+        sign("I", 3);
+
+        transcriber.close(1L);
+        assertEquals("HI II", stored.toString());
+    }
+
+    @Test
+    void lowConfidenceObservationsBreakTheWindow() {
+        sign("A", 2);
+        assertFalse(transcriber.observe(1L, "A", 0.5));
+        sign("A", 2);
+        transcriber.flush();
+        assertEquals("", stored.toString());
+
+        assertTrue(transcriber.observe(1L, "A", 0.9));
+        transcriber.flush();
+        assertEquals("A", stored.toString());
+    }
+
+    @Test
+    void aWindowWithoutAHandEndsTheRun() {
+        sign("H", 3);
+        sign("E", 3);
+        sign("L", 3);
+        transcriber.gap(1L, "t1");
+        transcriber.gap(1L, "t1");   // the same sample read twice
+        transcriber.gap(1L, "t2");
+        sign("L", 3);
+        transcriber.flush();
+        assertEquals("HEL", stored.toString(), "two gaps and an L do not fill a window");
+
+        transcriber.gap(1L, "t3");
+        transcriber.gap(1L, "t4");
+        transcriber.observe(1L, "L", 0.5);
+        sign("L", 3);
+        sign("O", 3);
+        transcriber.close(1L);
+        assertEquals("HELLO", stored.toString());
+    }
+
+    @Test
+    void deleteAppliesToPendingAndWrittenText() {
+        sign("A", 3);
+        sign("B", 3);
+        transcriber.flush();
+        assertEquals("AB", stored.toString());
+
+        sign("C", 3);
+        sign("del", 3);        // removes the pending C
+        sign("nothing", 3);
+        sign("del", 3);        // removes the written B
+        transcriber.close(1L);
+
+        assertEquals("A", stored.toString());
+        verify(sessionRepo).appendTranscript(1L, 1, "");
+    }
+
+    @Test
+    void fingerspellingAtThePollRateThroughTheRunEncoder() {
+        ReflectionTestUtils.setField(transcriber, "holdMs", 500L);
+        transcriber.init();
+        DetectionRunEncoder encoder = new DetectionRunEncoder(mock(DetectionResultWriter.class), new DetectionJournal());
+        DetectionSession session = DetectionSession.builder().id(1L).build();
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        LocalDateTime start = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+        // H, E and Y held 600 ms each, with 200 ms transitions through other hand shapes
+        String[] script = {"H", "H", "H", "G", "E", "E", "E", "T", "Y", "Y", "Y"};
+        int[] until = {200, 400, 600, 800, 1000, 1200, 1400, 1600, 1800, 2000, 2200};
+
+        String frameLetter = null, frameTimestamp = null;   // latest camera frame, 30 fps
+        String sampleLetter = null, sampleTimestamp = null; // upstream snapshot, refreshed every 250 ms
+        int part = 0;
+        for (int t = 0; t < 2200; t++) {
+            while (t >= until[part]) part++;
+            if (t % 33 == 0) {
+                frameLetter = script[part];
+                frameTimestamp = start.plusNanos(t * 1_000_000L).format(format);
+            }
+            if (t % 250 == 0) {
+                sampleLetter = frameLetter;
+                sampleTimestamp = frameTimestamp;
+            }
+            // the push loop and the client's own polls both read the snapshot, like saveDetectionResult
+            if (t % 250 == 125 || t % 100 == 0) {
+                if (encoder.observe(session, sampleLetter, 0.95, sampleTimestamp)) {
+                    transcriber.observe(1L, sampleLetter, 0.95);
+                }
+            }
+        }
+
+        transcriber.close(1L);
+        assertEquals("HEY", stored.toString());
+        assertEquals(9, session.getTotalPredictions(), "one observation per upstream sample");
+    }
+
+    private void sign(String letter, int times) {
+        for (int i = 0; i < times; i++) transcriber.observe(1L, letter, 0.95);
+    }
+}
@@ -0,0 +1,193 @@
+package com.asl.backend.service;
+
+import com.asl.backend.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InferenceWorkerPoolTest {
+
+    private final List<StubWorker> stubs = new ArrayList<>();
+    private final DetectionMetrics metrics = new DetectionMetrics(new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        stubs.forEach(s -> s.server.stop(0));
+    }
+
+    @Test
+    void placementIsStickyAndBalanced() throws IOException {
+        InferenceWorkerPool pool = pool(stub("A"), stub("B"), stub("C"));
+
+        Map<String, Integer> load = new HashMap<>();
+        for (long user = 1; user <= 30; user++) {
+            InferenceWorkerPool.Placement placement = pool.place(user);
+            assertFalse(placement.reassigned());
+            assertSame(placement.worker(), pool.place(user).worker());
+            load.merge(placement.worker().getUrl(), 1, Integer::sum);
+        }
+
+        // bound = ceil(30 * 1.25 / 3) = 13
+        assertEquals(3, load.size());
+        load.values().forEach(n -> assertTrue(n <= 13, "worker over its load bound: " + load));
+
+        pool.release(1L);
+        assertNull(pool.assigned(1L));
+        assertEquals(29, pool.getWorkers().stream().mapToInt(InferenceWorkerPool.Worker::getSessions).sum());
+    }
+
+    @Test
+    void evictsUnhealthyWorkersAndReadmitsThem() throws IOException {
+        StubWorker a = stub("A");
+        StubWorker b = stub("B");
+        InferenceWorkerPool pool = pool(a, b);
+
+        long user = 0;
+        InferenceWorkerPool.Worker first;
+        do {
+            first = pool.place(++user).worker();
+        } while (!first.getUrl().equals(a.url()));
+
+        a.healthy.set(false);
+        pool.probe();
+        assertTrue(first.isHealthy(), "one failed probe is tolerated");
+        pool.probe();
+        assertFalse(first.isHealthy());
+
+        InferenceWorkerPool.Placement moved = pool.place(user);
+        assertTrue(moved.reassigned());
+        assertEquals(b.url(), moved.worker().getUrl());
+        assertEquals(0, first.getSessions());
+
+        a.healthy.set(true);
+        pool.probe();
+        assertTrue(first.isHealthy());
+        assertFalse(pool.place(user).reassigned(), "re-admission does not move users again");
+    }
+
+    @Test
+    void routesCallsToTheAssignedWorker() throws IOException {
+        StubWorker a = stub("A");
+        StubWorker b = stub("B");
+        InferenceWorkerPool pool = pool(a, b);
+        PythonIntegrationService python = new PythonIntegrationService(pool, new ObjectMapper(), metrics, 5, 5000);
+
+        Map<String, Long> userOn = new HashMap<>();
+        for (long user = 1; userOn.size() < 2; user++) {
+            assertEquals("started", python.startDetection(user).join());
+            userOn.putIfAbsent(pool.assigned(user).getUrl(), user);
+        }
+
+        Long userA = userOn.get(a.url());
+        Long userB = userOn.get(b.url());
+        assertEquals("A", python.getLatestResult(userA).join().letter());
+        assertEquals("B", python.getLatestResult(userB).join().letter());
+
+        assertEquals("stopped", python.stopDetection(userA).join());
+        assertNull(pool.assigned(userA));
+    }
+
+    @Test
+    void sharedWorkerKeepsDetectingUntilItsLastSessionStops() throws IOException {
+        StubWorker a = stub("A");
+        InferenceWorkerPool pool = pool(a);
+        PythonIntegrationService python = new PythonIntegrationService(pool, new ObjectMapper(), metrics, 5, 5000);
+        python.startDetection(1L).join();
+        python.startDetection(2L).join();
+        assertSame(pool.assigned(1L), pool.assigned(2L));
+
+        assertEquals("stopped", python.stopDetection(1L).join());
+        assertEquals(0, a.stopCalls.get(), "user 2 still detects on the worker");
+        assertEquals(1, pool.assigned(2L).getSessions());
+
+        assertEquals("stopped", python.stopDetection(2L).join());
+        assertEquals(1, a.stopCalls.get());
+        assertEquals("error", python.stopDetection(2L).join(), "already released");
+        assertEquals(1, a.stopCalls.get());
+    }
+
+    @Test
+    void failingWorkerFailsFastWithTheLastKnownResult() throws IOException {
+        StubWorker a = stub("A");
+        InferenceWorkerPool pool = pool(a);
+        PythonIntegrationService python = new PythonIntegrationService(pool, new ObjectMapper(), metrics, 2, 60_000);
+        python.startDetection(1L).join();
+        assertEquals("A", python.getLatestResult(1L).join().letter());
+
+        a.failing.set(true);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("A", python.getLatestResult(1L).join().letter());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, python.getBreakerStates().get(a.url()));
+
+        int callsWhileOpen = a.resultCalls.get();
+        assertEquals("A", python.getLatestResult(1L).join().letter());
+        assertEquals(callsWhileOpen, a.resultCalls.get(), "open breaker does not call the worker");
+        assertEquals(1, metrics.getRegistry().get("inference.upstream.requests")
+                .tags("operation", "get-results", "outcome", "rejected").timer().count());
+    }
+
+    private InferenceWorkerPool pool(StubWorker... workers) {
+        InferenceWorkerPool pool = new InferenceWorkerPool();
+        ReflectionTestUtils.setField(pool, "workerUrls", String.join(",", Arrays.stream(workers).map(StubWorker::url).toList()));
+        ReflectionTestUtils.setField(pool, "loadFactor", 1.25);
+        ReflectionTestUtils.setField(pool, "evictAfter", 2);
+        ReflectionTestUtils.setField(pool, "healthTimeoutMs", 1000);
+        pool.init();
+        return pool;
+    }
+
+    // Minimal stand-in for aslmodel/api/app.py that always reports one letter
+    private StubWorker stub(String letter) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        StubWorker stub = new StubWorker(server);
+        server.createContext("/health", ex -> respond(ex, stub.healthy.get() ? 200 : 503, "{\"status\":\"ok\"}"));
+        server.createContext("/start-detection", ex -> respond(ex, 200, "{\"status\":\"started\"}"));
+        server.createContext("/stop-detection", ex -> {
+            stub.stopCalls.incrementAndGet();
+            respond(ex, 200, "{\"status\":\"stopped\"}");
+        });
+        server.createContext("/get-results", ex -> {
+            stub.resultCalls.incrementAndGet();
+            if (stub.failing.get()) {
+                respond(ex, 500, "{}");
+                return;
+            }
+            respond(ex, 200, "{\"letter\":\"" + letter + "\",\"confidence\":0.9,\"timestamp\":\"t1\"}");
+        });
+        server.start();
+        stubs.add(stub);
+        return stub;
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private record StubWorker(HttpServer server, AtomicBoolean healthy, AtomicBoolean failing, AtomicInteger resultCalls,
+                              AtomicInteger stopCalls) {
+        StubWorker(HttpServer server) {
+            this(server, new AtomicBoolean(true), new AtomicBoolean(), new AtomicInteger(), new AtomicInteger());
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+    }
+}
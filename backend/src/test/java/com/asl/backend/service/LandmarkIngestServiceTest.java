@@ -0,0 +1,95 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.LandmarkBatchDto;
+import com.asl.backend.entity.DetectionSession;
+import com.asl.backend.inference.LandmarkClassifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LandmarkIngestServiceTest {
+
+    private final DetectionService detectionService = mock(DetectionService.class);
+    private final LandmarkClassifier classifier = mock(LandmarkClassifier.class);
+    private final LandmarkIngestService ingest = new LandmarkIngestService(detectionService, classifier);
+    private final DetectionSession session = DetectionSession.builder().id(3L).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ingest, "maxFrames", 4);
+        ReflectionTestUtils.setField(ingest, "pooledBuffers", 2);
+        ingest.init();
+        when(detectionService.getActiveSession(1L)).thenReturn(session);
+    }
+
+    @Test
+    void decodesFramesInOrder() throws Exception {
+        when(detectionService.ingestLandmarkFrame(eq(1L), eq(session), anyLong(), anyLong(), any()))
+                .thenReturn(new LandmarkClassifier.Prediction("B", 0.9), (LandmarkClassifier.Prediction) null);
+
+        Map<String, Object> response = ingest.ingestBinary(1L, new ByteArrayInputStream(batch(2, 10, 11)));
+
+        ArgumentCaptor<Long> seqs = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> capturedAt = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<float[]> frames = ArgumentCaptor.forClass(float[].class);
+        verify(detectionService, times(2)).ingestLandmarkFrame(eq(1L), eq(session), seqs.capture(), capturedAt.capture(),
+                frames.capture());
+        assertEquals(10L, seqs.getAllValues().get(0));
+        assertEquals(11L, seqs.getAllValues().get(1));
+        assertEquals(1_700_000_000_011L, capturedAt.getValue());
+        assertEquals(62f, frames.getValue()[62], 1e-6); // last frame's last value
+        assertEquals(1, response.get("accepted"));
+        assertEquals(1, response.get("skipped"));
+        assertEquals("B", response.get("prediction"));
+    }
+
+    @Test
+    void rejectsTruncatedAndOversizedBatches() {
+        byte[] full = batch(2, 1, 2);
+        byte[] truncated = Arrays.copyOf(full, full.length - 4);
+        assertThrows(LandmarkIngestService.InvalidBatchException.class,
+                () -> ingest.ingestBinary(1L, new ByteArrayInputStream(truncated)));
+
+        assertThrows(LandmarkIngestService.InvalidBatchException.class,
+                () -> ingest.ingestBinary(1L, new ByteArrayInputStream(batch(5, 1, 2, 3, 4, 5))));
+    }
+
+    @Test
+    void jsonBatchesWithABadFrameRecordNothing() {
+        LandmarkBatchDto batch = new LandmarkBatchDto(List.of(
+                new LandmarkBatchDto.Frame(1, 1_700_000_000_001L, new float[LandmarkIngestService.LANDMARK_VALUES]),
+                new LandmarkBatchDto.Frame(2, 1_700_000_000_002L, new float[3])));
+
+        assertThrows(LandmarkIngestService.InvalidBatchException.class, () -> ingest.ingestJson(1L, batch));
+        verify(detectionService, never()).ingestLandmarkFrame(anyLong(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void requiresAnActiveSession() {
+        assertThrows(IllegalStateException.class,
+                () -> ingest.ingestBinary(2L, new ByteArrayInputStream(batch(1, 1))));
+    }
+
+    private static byte[] batch(int frameCount, long... seqs) {
+        ByteBuffer buffer = ByteBuffer.allocate(LandmarkIngestService.HEADER_BYTES + seqs.length * LandmarkIngestService.FRAME_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) LandmarkIngestService.VERSION).putShort((short) frameCount);
+        for (long seq : seqs) {
+            buffer.putInt((int) seq).putLong(1_700_000_000_000L + seq);
+            for (int i = 0; i < LandmarkIngestService.LANDMARK_VALUES; i++) buffer.putFloat(i);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,147 @@
+package com.asl.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two backend nodes, each its own application context, sharing one Postgres database.
+ * Runs only when ASL_TEST_DB_URL (plus ASL_TEST_DB_USERNAME / ASL_TEST_DB_PASSWORD) points
+ * at a disposable database, e.g. jdbc:postgresql://localhost:5432/asldb_test.
+ */
+@EnabledIfEnvironmentVariable(named = "ASL_TEST_DB_URL", matches = ".+")
+class PostgresSessionRegistryTest {
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+    private SessionRegistry a;
+    private SessionRegistry b;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = node("node-a");
+        nodeB = node("node-b");
+        nodeA.getBean(JdbcTemplate.class).execute(
+                "TRUNCATE registry_active_sessions, registry_user_presence");
+        a = nodeA.getBean(SessionRegistry.class);
+        b = nodeB.getBean(SessionRegistry.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void sessionsAreVisibleOnEveryNodeAndInvalidatedOnRemoval() {
+        a.register(1L, 10L);
+        assertEquals(10L, b.sessionOf(1L));
+        assertEquals(10L, b.sessionOf(1L), "served from the near-cache");
+
+        assertEquals(10L, a.unregister(1L));
+        awaitTrue(() -> b.sessionOf(1L) == null, "B's near-cache is invalidated by NOTIFY");
+        assertEquals(0, b.activeSessionCount());
+    }
+
+    @Test
+    void stopOnAnotherNodeIsHandledByTheOwner() throws Exception {
+        CompletableFuture<Long> stopped = new CompletableFuture<>();
+        a.onStopRequested(stopped::complete);
+        a.register(2L, 20L);
+
+        assertNull(a.requestStop(2L), "the owner stops its own sessions directly");
+        assertEquals(20L, b.requestStop(2L));
+        assertEquals(2L, stopped.get(5, TimeUnit.SECONDS));
+        assertNull(a.sessionOf(2L));
+    }
+
+    @Test
+    void latestLetterAndLoginsAreShared() {
+        a.register(3L, 30L);
+        a.updateLatestPrediction(3L, "B");
+        assertEquals("B", b.latestPrediction(3L));
+
+        a.userLoggedIn("a@example.com");
+        b.userLoggedIn("b@example.com");
+        assertEquals(2, a.loggedInUserCount());
+        a.userLoggedOut("b@example.com");
+        assertEquals(1, b.loggedInUserCount());
+    }
+
+    @Test
+    void aUserPresentOnTwoNodesCountsOnceUntilBothLetGo() {
+        a.userLoggedIn("c@example.com");
+        b.userLoggedIn("c@example.com");
+        assertEquals(1, a.loggedInUserCount());
+
+        a.userLoggedOut("c@example.com");
+        assertEquals(1, b.loggedInUserCount(), "still present on node-b");
+        b.userLoggedOut("c@example.com");
+        assertEquals(0, a.loggedInUserCount());
+    }
+
+    @Test
+    void entriesOfDeadNodesAreRemoved() {
+        b.register(4L, 40L);
+        JdbcTemplate jdbc = nodeA.getBean(JdbcTemplate.class);
+        jdbc.update("UPDATE registry_nodes SET seen_at = now() - interval '1 hour' WHERE node_id = 'node-b'");
+
+        ((PostgresSessionRegistry) a).heartbeat();
+        awaitTrue(() -> a.sessionOf(4L) == null, "session of node-b is gone");
+    }
+
+    private static AnnotationConfigApplicationContext node(String nodeId) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "detection.registry", "postgres",
+                "detection.registry.node-id", nodeId,
+                "detection.registry.count-cache-ms", "0")));
+        context.register(NodeConfig.class, PostgresSessionRegistry.class);
+        context.refresh();
+        return context;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail(message);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Configuration
+    static class NodeConfig {
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource(System.getenv("ASL_TEST_DB_URL"),
+                    Objects.requireNonNullElse(System.getenv("ASL_TEST_DB_USERNAME"), "postgres"),
+                    Objects.requireNonNullElse(System.getenv("ASL_TEST_DB_PASSWORD"), ""));
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+}
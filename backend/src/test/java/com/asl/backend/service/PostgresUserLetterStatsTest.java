@@ -0,0 +1,190 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.UserLetterStats;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.repository.UserLetterStatsRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserLetterStatsService against a real Postgres row: the PESSIMISTIC_WRITE lock of
+ * concurrent batches of one user and Hibernate's dirty checking of the arrays, which are
+ * updated in place and never saved explicitly. Runs only when ASL_TEST_DB_URL (plus
+ * ASL_TEST_DB_USERNAME / ASL_TEST_DB_PASSWORD) points at a disposable database.
+ */
+@EnabledIfEnvironmentVariable(named = "ASL_TEST_DB_URL", matches = ".+")
+class PostgresUserLetterStatsTest {
+
+    private static final long USER_ID = 987_654_321L;
+
+    private AnnotationConfigApplicationContext context;
+    private UserLetterStatsRepository statsRepo;
+    private TransactionTemplate transactionTemplate;
+    private UserLetterStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(JpaConfig.class);
+        statsRepo = context.getBean(UserLetterStatsRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        service = new UserLetterStatsService(statsRepo, mock(DetectionResultRepository.class),
+                mock(SessionResultArchiveRepository.class), transactionTemplate);
+        ReflectionTestUtils.setField(service, "alpha", 0.1);
+        context.getBean(JdbcTemplate.class).update("DELETE FROM user_letter_stats WHERE user_id = ?", USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.getBean(JdbcTemplate.class).update("DELETE FROM user_letter_stats WHERE user_id = ?", USER_ID);
+        context.close();
+    }
+
+    @Test
+    void inPlaceArrayUpdatesAreFlushedOnCommit() {
+        transactionTemplate.executeWithoutResult(tx -> service.resultsWritten(USER_ID, List.of(run("A", 0.8, 2))));
+        transactionTemplate.executeWithoutResult(tx -> service.resultsWritten(USER_ID, List.of(run("A", 0.4, 1),
+                run("C", 0.6, 3))));
+
+        UserLetterStats stored = statsRepo.findById(USER_ID).orElseThrow();
+        assertEquals(3, stored.getCounts()[0]);
+        assertEquals(3, stored.getCounts()[2]);
+        assertEquals(0.8 * 2 + 0.4, stored.getConfidenceSums()[0], 1e-9);
+        assertEquals(0.8 * 0.9 + 0.4 * 0.1, stored.getRecentConfidence()[0], 1e-9);
+        assertEquals(0.6, stored.getRecentConfidence()[2], 1e-9);
+        assertNotNull(stored.getUpdatedAt());
+    }
+
+    @Test
+    void concurrentBatchesOfOneUserAreAllCounted() throws Exception {
+        int writers = 8;
+        int batchesPerWriter = 5;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<CompletableFuture<Void>> done = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                done.add(CompletableFuture.runAsync(() -> {
+                    await(start);
+                    for (int i = 0; i < batchesPerWriter; i++) {
+                        transactionTemplate.executeWithoutResult(tx -> {
+                            service.resultsWritten(USER_ID, List.of(run("B", 0.5, 2), run("Z", 1.0, 1)));
+                            // hold the row lock: without it the other writers read the same counts and overwrite them
+                            sleep(10);
+                        });
+                    }
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UserLetterStats stored = statsRepo.findById(USER_ID).orElseThrow();
+        int batches = writers * batchesPerWriter;
+        assertEquals(2L * batches, stored.getCounts()[1]);
+        assertEquals(batches, stored.getCounts()[25]);
+        assertEquals(1.0 * batches, stored.getConfidenceSums()[1], 1e-9);
+        assertEquals(1.0 * batches, stored.getConfidenceSums()[25], 1e-9);
+    }
+
+    private static DetectionResult run(String letter, double confidence, int observations) {
+        DetectionResult r = new DetectionResult();
+        r.setLetter(letter);
+        r.setConfidence(confidence);
+        r.setObservations(observations);
+        r.setConfidenceSum(confidence * observations);
+        return r;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = UserLetterStatsRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = UserLetterStatsRepository.class))
+    static class JpaConfig {
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource(System.getenv("ASL_TEST_DB_URL"),
+                    Objects.requireNonNullElse(System.getenv("ASL_TEST_DB_USERNAME"), "postgres"),
+                    Objects.requireNonNullElse(System.getenv("ASL_TEST_DB_PASSWORD"), ""));
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setManagedTypes(PersistenceManagedTypes.of(UserLetterStats.class.getName()));
+            // the column names Spring Boot's naming strategy gives the application's schema
+            factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "update",
+                    "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+            return factory;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.asl.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredictionStreamServiceTest {
+
+    private static class RecordingSubscriber extends PredictionStreamService.Subscriber {
+        final List<PredictionStreamService.StreamEvent> sent = new ArrayList<>();
+
+        RecordingSubscriber(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        protected void send(PredictionStreamService.StreamEvent event) {
+            sent.add(event);
+        }
+
+        @Override
+        protected void complete() {
+        }
+    }
+
+    @Test
+    void slowSubscriberDropsOldestEvents() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(3);
+        for (int i = 0; i < 10; i++) {
+            subscriber.offer(new PredictionStreamService.StreamEvent("prediction", i));
+        }
+
+        assertEquals(7, subscriber.getDropped());
+        assertEquals(7, subscriber.poll().data());
+        assertEquals(8, subscriber.poll().data());
+        assertEquals(9, subscriber.poll().data());
+        assertNull(subscriber.poll());
+    }
+
+    @Test
+    void publishSkipsUnchangedPredictions() {
+        PredictionStreamService service = new PredictionStreamService();
+
+        assertTrue(service.publish(1L, "A", 0.9));
+        assertFalse(service.publish(1L, "A", 0.9));
+        assertTrue(service.publish(1L, "A", 0.95));
+        assertTrue(service.publish(1L, "B", 0.95));
+
+        service.close(1L, Map.of());
+        assertTrue(service.publish(1L, "B", 0.95));
+        service.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+package com.asl.backend.service;
+
+import com.asl.backend.entity.User;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PresenceTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemorySessionRegistry registry = new InMemorySessionRegistry();
+    private PresenceTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PresenceTracker(registry);
+        ReflectionTestUtils.setField(tracker, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(tracker, "tickMs", 10_000L);
+        ReflectionTestUtils.setField(tracker, "clock", (LongSupplier) now::get);
+        tracker.init();
+    }
+
+    @Test
+    void usersExpireAfterTheTtlUnlessSeenAgain() {
+        tracker.touch("idle@example.com");
+        tracker.touch("busy@example.com");
+        tracker.touch("busy@example.com");
+        assertEquals(2, tracker.getPresentCount());
+        assertEquals(2, registry.loggedInUserCount());
+
+        advance(Duration.ofMinutes(20));
+        tracker.touch("busy@example.com");
+        advance(Duration.ofMinutes(11));
+
+        assertFalse(tracker.isPresent("idle@example.com"));
+        assertTrue(tracker.isPresent("busy@example.com"));
+        assertEquals(1, tracker.getPresentCount());
+        assertEquals(1, registry.loggedInUserCount());
+
+        advance(Duration.ofMinutes(20));
+        assertEquals(0, tracker.getPresentCount());
+        assertEquals(0, registry.loggedInUserCount());
+    }
+
+    @Test
+    void logoutAndSessionEndRemoveImmediately() {
+        tracker.touch("a@example.com");
+        tracker.touch("b@example.com");
+        tracker.remove("a@example.com");
+        assertEquals(1, tracker.getPresentCount());
+
+        User user = new User();
+        user.setEmail("b@example.com");
+        HttpSession session = mock(HttpSession.class);
+        when(session.getAttribute("user")).thenReturn(user);
+        tracker.sessionDestroyed(new HttpSessionEvent(session));
+
+        assertEquals(0, tracker.getPresentCount());
+        assertEquals(0, registry.loggedInUserCount());
+
+        // the stale wheel entries are skipped
+        advance(Duration.ofHours(1));
+        assertEquals(0, tracker.getPresentCount());
+    }
+
+    @Test
+    void returningUserIsCountedOnce() {
+        tracker.touch("a@example.com");
+        advance(Duration.ofMinutes(31));
+        assertEquals(0, tracker.getPresentCount());
+
+        tracker.touch("a@example.com");
+        tracker.touch("a@example.com");
+        assertEquals(1, tracker.getPresentCount());
+        advance(Duration.ofMinutes(10));
+        assertEquals(1, tracker.getPresentCount());
+    }
+
+    // move the clock one tick at a time, as the scheduler would
+    private void advance(Duration duration) {
+        long end = now.get() + duration.toMillis();
+        while (now.get() < end) {
+            now.addAndGet(Math.min(10_000, end - now.get()));
+            tracker.expire();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.asl.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger computations = new AtomicInteger();
+    private final ResponseCache cache =
+            new ResponseCache(new ObjectMapper(), new DetectionMetrics(new SimpleMeterRegistry()));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "clock", (LongSupplier) now::get);
+        ReflectionTestUtils.setField(cache, "ttlMs", 1000L);
+        ReflectionTestUtils.setField(cache, "maxStaleMs", 10_000L);
+    }
+
+    @Test
+    void servesStaleWhileOneBackgroundRefreshRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        assertEquals("{\"n\":1}", body(cache.get("k", this::next)));
+
+        now.addAndGet(500);
+        assertEquals("{\"n\":1}", body(cache.get("k", this::next)), "fresh");
+        assertEquals(1, computations.get());
+
+        now.addAndGet(1000);
+        ResponseCache.Snapshot stale = cache.get("k", () -> {
+            await(release);
+            return next();
+        });
+        assertEquals("{\"n\":1}", body(stale), "stale value while the refresh runs");
+        assertEquals("{\"n\":1}", body(cache.get("k", this::next)), "no second refresh");
+        release.countDown();
+
+        for (int i = 0; i < 100 && computations.get() < 2; i++) Thread.sleep(10);
+        assertEquals(2, computations.get());
+        for (int i = 0; i < 100 && !body(cache.get("k", this::next)).equals("{\"n\":2}"); i++) Thread.sleep(10);
+        assertEquals("{\"n\":2}", body(cache.get("k", this::next)));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneComputation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseCache.Snapshot>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("k", () -> {
+                    await(release);
+                    return next();
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<ResponseCache.Snapshot> result : results) {
+                assertEquals("{\"n\":1}", body(result.get(5, TimeUnit.SECONDS)));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void answersNotModifiedForAMatchingEtag() {
+        ResponseEntity<?> first = cache.respond("k", null, () -> Map.of("n", 1));
+        String etag = first.getHeaders().getETag();
+        assertEquals(200, first.getStatusCode().value());
+        assertTrue(etag.startsWith("\"") && !etag.startsWith("\"W/"), "strong etag");
+
+        ResponseEntity<?> second = cache.respond("k", "\"other\", " + etag, () -> Map.of("n", 1));
+        assertEquals(304, second.getStatusCode().value());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getFirst(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void rethrowsFailuresOfAComputationItWaitedFor() {
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("{\"n\":1}", body(cache.get("k", this::next)), "next caller retries");
+    }
+
+    private Map<String, Integer> next() {
+        return Map.of("n", computations.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String body(ResponseCache.Snapshot snapshot) {
+        return new String(snapshot.body(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.ResultExportRow;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResultExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 2, 1, 0, 0);
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 1, 5, 10, 30, 15);
+
+    private final DetectionResultRepository resultRepo = mock(DetectionResultRepository.class);
+    private final SessionResultArchiveRepository archiveRepo = mock(SessionResultArchiveRepository.class);
+    private final ResultExportService exportService =
+            new ResultExportService(resultRepo, archiveRepo, mock(PlatformTransactionManager.class), new ObjectMapper());
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Test
+    void writesOneJsonObjectPerLine() throws IOException {
+        when(resultRepo.streamExportForUser(7L, FROM, TO)).thenReturn(rows());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(7L, FROM, TO, ResultExportService.Format.NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("resultId").asLong());
+        assertEquals("A", first.get("letter").asText());
+        assertEquals(3, first.get("observations").asInt());
+        assertEquals("2025-01-05T10:30:15", first.get("detectedAt").asText());
+        assertTrue(closed.get(), "cursor is closed");
+    }
+
+    @Test
+    void writesQuotedCsvForAllUsers() throws IOException {
+        when(resultRepo.streamExport(FROM, TO)).thenReturn(rows());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(null, FROM, TO, ResultExportService.Format.CSV, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("result_id,session_id,user_id,letter,confidence,observations," +
+                "detected_at,started_at,ended_at,upstream_timestamp", lines[0]);
+        assertEquals("1,10,7,A,0.9,3,2025-01-05T10:30:15,2025-01-05T10:30:15,2025-01-05T10:30:17,t1", lines[1]);
+        assertEquals("2,10,7,B,0.8,1,2025-01-05T10:30:15,,,\"a,\"\"b\"\"\"", lines[2]);
+    }
+
+    @Test
+    void gzipsWhenAsked() throws IOException {
+        when(resultRepo.streamExportForUser(7L, FROM, TO)).thenReturn(rows());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(7L, FROM, TO, ResultExportService.Format.CSV, true, out);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(3, csv.split("\n").length);
+        }
+    }
+
+    private Stream<ResultExportRow> rows() {
+        return Stream.of(
+                new ResultExportRow(1L, 10L, 7L, "A", 0.9, 3, AT, AT, AT.plusSeconds(2), "t1"),
+                new ResultExportRow(2L, 10L, 7L, "B", 0.8, 1, AT, null, null, "a,\"b\"")
+        ).onClose(() -> closed.set(true));
+    }
+}
@@ -0,0 +1,72 @@
+package com.asl.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UpstreamResultPollerTest {
+
+    private final PythonIntegrationService python = mock(PythonIntegrationService.class);
+    private final InferenceWorkerPool pool = mock(InferenceWorkerPool.class);
+    private final UpstreamResultPoller poller = new UpstreamResultPoller(python, pool);
+    private final InferenceWorkerPool.Worker worker = new InferenceWorkerPool.Worker("http://worker-1");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(poller, "maxAgeMs", 60_000L);
+        ReflectionTestUtils.setField(poller, "idleMs", 60_000L);
+        when(python.resolve(any())).thenReturn(CompletableFuture.completedFuture(worker));
+        when(pool.getWorkers()).thenReturn(List.of(worker));
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() {
+        CompletableFuture<PythonIntegrationService.PythonResult> upstream = new CompletableFuture<>();
+        when(python.fetchResult(worker)).thenReturn(upstream);
+
+        var first = poller.latest(1L);
+        var second = poller.latest(2L);
+        assertFalse(first.isDone());
+
+        upstream.complete(result("A", "t1"));
+        assertEquals("A", first.join().letter());
+        assertEquals("A", second.join().letter());
+        verify(python, times(1)).fetchResult(worker);
+
+        // later reads are served from the snapshot
+        assertEquals("A", poller.latest(3L).join().letter());
+        verify(python, times(1)).fetchResult(worker);
+    }
+
+    @Test
+    void versionOnlyMovesWhenTheResultChanges() {
+        when(python.fetchResult(worker))
+                .thenReturn(CompletableFuture.completedFuture(result("A", "t1")))
+                .thenReturn(CompletableFuture.completedFuture(result("A", "t1")))
+                .thenReturn(CompletableFuture.completedFuture(result("B", "t2")));
+
+        assertEquals(1, poller.snapshotFor(1L).join().version());
+        poller.poll();
+        assertEquals(1, poller.peek(worker.getUrl()).version());
+        poller.poll();
+        assertEquals(2, poller.peek(worker.getUrl()).version());
+        assertEquals("B", poller.peek(worker.getUrl()).result().letter());
+    }
+
+    @Test
+    void idleWorkersAreNotPolled() {
+        poller.poll();
+        verify(python, never()).fetchResult(any());
+    }
+
+    private static PythonIntegrationService.PythonResult result(String letter, String timestamp) {
+        return new PythonIntegrationService.PythonResult(letter, 0.9, timestamp);
+    }
+}
@@ -0,0 +1,73 @@
+package com.asl.backend.service;
+
+import com.asl.backend.dto.LetterStatsDto;
+import com.asl.backend.entity.DetectionResult;
+import com.asl.backend.entity.UserLetterStats;
+import com.asl.backend.repository.DetectionResultRepository;
+import com.asl.backend.repository.SessionResultArchiveRepository;
+import com.asl.backend.repository.UserLetterStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserLetterStatsServiceTest {
+
+    private final UserLetterStatsRepository statsRepo = mock(UserLetterStatsRepository.class);
+    private final UserLetterStatsService service = new UserLetterStatsService(statsRepo,
+            mock(DetectionResultRepository.class), mock(SessionResultArchiveRepository.class),
+            mock(TransactionTemplate.class));
+    private final UserLetterStats stats = UserLetterStats.empty(7L);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "alpha", 0.5);
+        ReflectionTestUtils.setField(service, "weakestMinCount", 2L);
+        ReflectionTestUtils.setField(service, "weakestLimit", 2);
+        when(statsRepo.findForUpdate(7L)).thenReturn(Optional.of(stats));
+        when(statsRepo.findById(7L)).thenReturn(Optional.of(stats));
+    }
+
+    @Test
+    void addsBatchesUnderTheRowLock() {
+        service.resultsWritten(7L, List.of(run("A", 0.8, 1), run("A", 0.4, 2), run("unknown", 0.9, 1)));
+
+        verify(statsRepo).insertEmpty(7L, 29);
+        assertEquals(3, stats.getCounts()[0]);
+        assertEquals(0.8 + 0.8, stats.getConfidenceSums()[0], 1e-9);
+        // first run sets the average, then two observations at 0.4 keep a quarter of it
+        assertEquals(0.8 * 0.25 + 0.4 * 0.75, stats.getRecentConfidence()[0], 1e-9);
+        assertNotNull(stats.getUpdatedAt());
+    }
+
+    @Test
+    void listsEveryClassAndTheWeakestPracticedLetters() {
+        service.resultsWritten(7L, List.of(run("A", 0.9, 3), run("B", 0.5, 2), run("C", 0.7, 4), run("D", 0.1, 1)));
+
+        LetterStatsDto dto = service.getStats(7L);
+
+        assertEquals(29, dto.letters().size());
+        LetterStatsDto.Letter b = dto.letters().get(1);
+        assertEquals("B", b.letter());
+        assertEquals(2, b.count());
+        assertEquals(0.5, b.averageConfidence(), 1e-9);
+        assertNull(dto.letters().get(4).averageConfidence());
+        // D has too few observations to be ranked
+        assertEquals(List.of("B", "C"), dto.weakest());
+    }
+
+    private static DetectionResult run(String letter, double confidence, int observations) {
+        DetectionResult r = new DetectionResult();
+        r.setLetter(letter);
+        r.setConfidence(confidence);
+        r.setObservations(observations);
+        r.setConfidenceSum(confidence * observations);
+        return r;
+    }
+}
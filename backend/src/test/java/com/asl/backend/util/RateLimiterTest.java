@@ -0,0 +1,66 @@
+package com.asl.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final RateLimiter limiter = new RateLimiter(10, 3, now::get);
+
+    @Test
+    void allowsTheBurstThenRefillsAtTheRate() {
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire("u1"));
+        long wait = limiter.tryAcquire("u1");
+        assertEquals(100_000_000L, wait, "next token in one interval");
+        assertEquals(0, limiter.tryAcquire("u2"), "buckets are per key");
+
+        now.addAndGet(wait);
+        assertEquals(0, limiter.tryAcquire("u1"));
+        assertTrue(limiter.tryAcquire("u1") > 0);
+    }
+
+    @Test
+    void evictsOnlyRefilledBuckets() {
+        limiter.tryAcquire("u1");
+        limiter.tryAcquire("u1");
+        assertEquals(0, limiter.evictFull());
+
+        now.addAndGet(200_000_000L);
+        assertEquals(1, limiter.evictFull());
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+        RateLimiter frozen = new RateLimiter(1, 50, now::get);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (frozen.tryAcquire("shared") == 0) admitted.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(50, admitted.get());
+    }
+}
@@ -0,0 +1,94 @@
+package com.asl.backend.util;
+
+import com.asl.backend.entity.DetectionResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultArchiveCodecTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 1, 5, 10, 30, 15, 250_000_000);
+
+    @Test
+    void roundTripsRunsWithAndWithoutDeflate() {
+        List<DetectionResult> rows = List.of(
+                run("A", 0.9, 3, 0.8, 1.0, AT, AT.plusSeconds(2)),
+                run("space", 0.75, 1, 0.75, 0.75, AT.plusSeconds(3), AT.plusSeconds(3)));
+
+        for (boolean deflate : new boolean[]{false, true}) {
+            List<DetectionResult> decoded = ResultArchiveCodec.decode(ResultArchiveCodec.encode(rows, deflate));
+
+            assertEquals(2, decoded.size());
+            DetectionResult a = decoded.get(0);
+            assertEquals("A", a.getLetter());
+            assertEquals(0.9, a.getConfidence(), 1e-4);
+            assertEquals(3, a.getObservationCount());
+            assertEquals(0.8, a.getMinConfidence(), 1e-4);
+            assertEquals(1.0, a.getMaxConfidence(), 1e-4);
+            assertEquals(AT, a.getDetectedAt());
+            assertEquals(AT, a.getStartedAt());
+            assertEquals(AT.plusSeconds(2), a.getEndedAt());
+            assertEquals("space", decoded.get(1).getLetter());
+            assertEquals(AT.plusSeconds(3), decoded.get(1).getDetectedAt());
+        }
+    }
+
+    @Test
+    void keepsLegacyRowsAndUnknownLabels() {
+        DetectionResult legacy = new DetectionResult();
+        legacy.setLetter("B");
+        legacy.setConfidence(0.5);
+        DetectionResult unknown = new DetectionResult();
+        unknown.setLetter("thumbs-up");
+        unknown.setConfidence(0.6);
+        unknown.setDetectedAt(AT);
+
+        List<DetectionResult> decoded = ResultArchiveCodec.decode(ResultArchiveCodec.encode(List.of(legacy, unknown), true));
+
+        assertEquals("B", decoded.get(0).getLetter());
+        assertNull(decoded.get(0).getDetectedAt());
+        assertEquals(1, decoded.get(0).getObservationCount());
+        assertEquals("thumbs-up", decoded.get(1).getLetter());
+        assertEquals(AT, decoded.get(1).getDetectedAt());
+    }
+
+    @Test
+    void deflatesRepetitiveSessions() {
+        List<DetectionResult> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime at = AT.plusSeconds(i);
+            rows.add(run(AslAlphabet.CLASS_NAMES.get(i % 5), 0.9, 4, 0.85, 0.95, at, at.plusNanos(500_000_000)));
+        }
+
+        byte[] plain = ResultArchiveCodec.encode(rows, false);
+        byte[] deflated = ResultArchiveCodec.encode(rows, true);
+
+        assertTrue(plain.length < 1000 * 16, "compact without deflate: " + plain.length);
+        assertTrue(deflated.length < plain.length, "deflate shrinks it further: " + deflated.length);
+        assertEquals(rows.get(999).getEndedAt(), ResultArchiveCodec.decode(deflated).get(999).getEndedAt());
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        assertThrows(IllegalArgumentException.class, () -> ResultArchiveCodec.decode(new byte[]{9, 0, 0}));
+    }
+
+    private static DetectionResult run(String letter, double confidence, int observations, double min, double max,
+                                       LocalDateTime started, LocalDateTime ended) {
+        DetectionResult r = new DetectionResult();
+        r.setLetter(letter);
+        r.setConfidence(confidence);
+        r.setObservations(observations);
+        r.setConfidenceSum(confidence * observations);
+        r.setMinConfidence(min);
+        r.setMaxConfidence(max);
+        r.setDetectedAt(started);
+        r.setStartedAt(started);
+        r.setEndedAt(ended);
+        return r;
+    }
+}
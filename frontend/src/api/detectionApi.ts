@@ -13,7 +13,7 @@ export interface SessionHistoryItem {
   duration: number;
   totalPredictions: number;
   averageConfidence: number;
-  letters?: string[];
+  transcript?: string;
 }
 
 export interface SessionHistoryResponse {
@@ -23,6 +23,13 @@ export interface SessionHistoryResponse {
   totalSessions: number;
 }
 
+/** Keyset (cursor) page of session history */
+export interface SessionHistoryCursorResponse {
+  sessions: SessionHistoryItem[];
+  hasMore: boolean;
+  nextCursor: string | null;
+}
+
 /** --------- Dashboard APIs --------- */
 export interface TotalUsersResponse {
   totalUsers: number;
@@ -104,11 +111,48 @@ export const endDetectionSession = () =>
 export const getLatestPrediction = () =>
   apiRequest<LatestPredictionResponse>(`/detection/result`);
 
+/**
+ * Subscribe to pushed predictions (SSE). Returns an unsubscribe function.
+ * `onError` fires when the stream cannot be used so callers can fall back to polling.
+ */
+export const subscribeToPredictions = (
+  onPrediction: (prediction: LatestPredictionResponse) => void,
+  onStopped?: (summary: EndSessionResponse) => void,
+  onError?: () => void
+): (() => void) => {
+  if (typeof window === "undefined" || !("EventSource" in window)) {
+    onError?.();
+    return () => {};
+  }
+
+  const source = new EventSource(`${API_BASE_URL}/detection/stream`, {
+    withCredentials: true,
+  });
+
+  source.addEventListener("prediction", (event) => {
+    onPrediction(JSON.parse((event as MessageEvent).data));
+  });
+  source.addEventListener("stopped", (event) => {
+    onStopped?.(JSON.parse((event as MessageEvent).data));
+    source.close();
+  });
+  source.onerror = () => {
+    if (source.readyState === EventSource.CLOSED) onError?.();
+  };
+
+  return () => source.close();
+};
+
 export const getSessionHistory = (page: number, limit: number) =>
   apiRequest<SessionHistoryResponse>(
     `/detection/sessions?page=${page}&limit=${limit}`
   );
 
+export const getSessionHistoryAfter = (cursor: string | null, limit: number) =>
+  apiRequest<SessionHistoryCursorResponse>(
+    `/detection/sessions?cursor=${encodeURIComponent(cursor ?? "")}&limit=${limit}`
+  );
+
 // Dashboard / Stats APIs
 export const getTotalUsers = () =>
   apiRequest<TotalUsersResponse>(`/dashboard/users/total`);
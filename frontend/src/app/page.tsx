@@ -72,7 +72,12 @@ export default function LandingPage() {
           throw new Error("Failed to fetch stats");
         }
         const stats = await response.json();
-        setPlatformStats(stats);
+        setPlatformStats({
+          accuracyRate: stats.accuracyRate,
+          activeUsers: stats.activeUsers,
+          signsDetected: stats.signsDetected,
+          uptime: stats.uptime,
+        });
       } catch (error) {
         console.error("Failed to fetch platform stats:", error);
       }
@@ -203,8 +208,8 @@ export default function LandingPage() {
                     <CountUp
                       end={value}
                       separator=","
-                      decimals={key === "accuracyRate" ? 1 : 0}
-                      suffix={key === "accuracyRate" ? "%" : key === "signsDetected" ? "+" : ""}
+                      decimals={key === "accuracyRate" || key === "uptime" ? 1 : 0}
+                      suffix={key === "accuracyRate" || key === "uptime" ? "%" : key === "signsDetected" ? "+" : ""}
                     />
                   ) : (
                     value
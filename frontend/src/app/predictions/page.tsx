@@ -19,6 +19,7 @@ import {
   startDetectionSession,
   getLatestPrediction,
   endDetectionSession,
+  subscribeToPredictions,
 } from "@/api/detectionApi";
 
 import type { StartSessionResponse } from "@/api/detectionApi";
@@ -29,6 +30,7 @@ export default function PredictionsPage() {
   const [sessionId, setSessionId] = useState<number | null>(null); // <-- corrected type
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState("");
+  const [streamFailed, setStreamFailed] = useState(false);
 
   // Start a new detection session
   const startSession = useCallback(async () => {
@@ -94,12 +96,28 @@ export default function PredictionsPage() {
     }
   }, [sessionActive]);
 
-  // Poll predictions every 2 seconds when session is active
+  // Receive pushed predictions while the session is active
   useEffect(() => {
-    if (!sessionActive) return;
+    if (!sessionActive || streamFailed) return;
+    return subscribeToPredictions(
+      (data) =>
+        setPredictions([
+          {
+            sign: data.prediction ?? "Uncertain",
+            confidence: data.confidence ?? 100,
+          },
+        ]),
+      undefined,
+      () => setStreamFailed(true)
+    );
+  }, [sessionActive, streamFailed]);
+
+  // Fall back to polling every 2 seconds if the stream is unavailable
+  useEffect(() => {
+    if (!sessionActive || !streamFailed) return;
     const interval = setInterval(fetchPredictions, 2000);
     return () => clearInterval(interval);
-  }, [sessionActive, fetchPredictions]);
+  }, [sessionActive, streamFailed, fetchPredictions]);
 
   return (
     <ProtectedRoute>
@@ -124,7 +142,7 @@ export default function PredictionsPage() {
             </Heading>
             <Text fontSize="lg" color="gray.500">
               Real-time sign language detection. Predictions update automatically
-              every few seconds.
+              as soon as they change.
             </Text>
           </VStack>
 